@@ -0,0 +1,118 @@
+package org.springframework.ai.skyworkai.tiangong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.model.function.FunctionCallbackWrapper;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongChatOptions;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the request assembly of {@link SkyworkAiTiangongChatClient}, with and
+ * without tools. Lives in the package of the client to reach the package-private
+ * {@code createRequest}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar SkyworkAiTiangongChatClientBenchmark -prof gc}
+ * to report the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SkyworkAiTiangongChatClientBenchmark {
+
+    /**
+     * Number of registered and enabled functions, none for a plain request.
+     */
+    @Param({ "0", "4", "20" })
+    public int tools;
+
+    private SkyworkAiTiangongChatClient chatClient;
+
+    private Prompt prompt;
+
+    private Prompt promptWithOptions;
+
+    @Setup
+    public void setup() {
+        List<FunctionCallback> functionCallbacks = new ArrayList<>();
+        Set<String> functions = new HashSet<>();
+        for (int i = 0; i < this.tools; i++) {
+            String name = "weather" + i;
+            functionCallbacks.add(FunctionCallbackWrapper.builder(new WeatherService())
+                    .withName(name)
+                    .withDescription("Get the current weather of a city")
+                    .withInputType(WeatherService.Request.class)
+                    .build());
+            functions.add(name);
+        }
+        SkyworkAiTiangongChatOptions options = SkyworkAiTiangongChatOptions.builder()
+                .withModel(SkyworkAiTiangongApi.ChatModel.SKYCHAT_MEGAVERSE.getValue())
+                .withMaxToken(1024)
+                .withDoSample(Boolean.TRUE)
+                .withTemperature(0.95f)
+                .withTopP(0.7f)
+                .withFunctionCallbacks(functionCallbacks)
+                .withFunctions(functions)
+                .build();
+        this.chatClient = new SkyworkAiTiangongChatClient(new SkyworkAiTiangongApi("benchmark"), options);
+
+        List<Message> messages = List.of(new SystemMessage("You are a helpful assistant."),
+                new UserMessage("What's the weather like in Beijing?"),
+                new AssistantMessage("Sunny, 25 degrees."), new UserMessage("And in Shanghai?"));
+        this.prompt = new Prompt(messages);
+        this.promptWithOptions = new Prompt(messages,
+                SkyworkAiTiangongChatOptions.builder().withTemperature(0.5f).withMaxToken(512).build());
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionRequest createRequest() {
+        return this.chatClient.createRequest(this.prompt, false);
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionRequest createRequestWithRuntimeOptions() {
+        return this.chatClient.createRequest(this.promptWithOptions, false);
+    }
+
+    /**
+     * Function of the registered tools, never called by the benchmarks.
+     */
+    static class WeatherService implements java.util.function.Function<WeatherService.Request, WeatherService.Response> {
+
+        record Request(String city, String unit) {
+        }
+
+        record Response(double temperature, String unit) {
+        }
+
+        @Override
+        public Response apply(Request request) {
+            return new Response(25.0, request.unit());
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.springframework.ai.skyworkai.tiangong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.RetryUtils;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.ai.skyworkai.tiangong.util.ApiUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the per-chunk path of {@link SkyworkAiTiangongChatClient#stream}, from
+ * the SSE bytes to the {@code ChatResponse}, replaying a canned text completion without
+ * any network. The score is in chunks.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar SkyworkAiTiangongChatClientStreamBenchmark -prof gc}
+ * to report the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SkyworkAiTiangongChatClientStreamBenchmark {
+
+    private static final int CHUNKS = 256;
+
+    private SkyworkAiTiangongChatClient chatClient;
+
+    private Prompt prompt;
+
+    @Setup
+    public void setup() {
+        this.chatClient = new SkyworkAiTiangongChatClient(cannedStreamApi(textEventStream(CHUNKS)));
+        this.prompt = new Prompt(new UserMessage("Tell me a long story."));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public ChatResponse streamTextChunks() {
+        return this.chatClient.stream(this.prompt).blockLast();
+    }
+
+    /**
+     * Api whose {@code WebClient} answers every request with the given SSE body, so that
+     * the chunk decoding and merging of the api are measured as well.
+     */
+    private static SkyworkAiTiangongApi cannedStreamApi(String eventStream) {
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .body(eventStream)
+                        .build()));
+        return new SkyworkAiTiangongApi(ApiUtils.DEFAULT_BASE_URL, "benchmark", RestClient.builder(), webClientBuilder,
+                RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER);
+    }
+
+    private static String textEventStream(int count) {
+        StringBuilder eventStream = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String role = (i == 0 ? "\"role\":\"assistant\"," : "");
+            String finishReason = (i == count - 1 ? ",\"finish_reason\":\"stop\"" : "");
+            eventStream.append("data: {\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",")
+                    .append("\"created\":1700000000,\"model\":\"SkyChat-MegaVerse\",\"request_id\":\"request-1\",")
+                    .append("\"choices\":[{\"index\":0,\"delta\":{").append(role)
+                    .append("\"content\":\"token").append(i).append(" \"}").append(finishReason)
+                    .append("}]}\n\n");
+        }
+        return eventStream.append("data: [DONE]\n\n").toString();
+    }
+
+}
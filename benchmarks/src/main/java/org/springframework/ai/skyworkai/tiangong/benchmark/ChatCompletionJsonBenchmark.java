@@ -0,0 +1,117 @@
+package org.springframework.ai.skyworkai.tiangong.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the JSON mapping of requests and streamed chunks, with an
+ * {@link ObjectMapper} configured like the one of the {@code RestClient} and
+ * {@code WebClient} codecs.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ChatCompletionJsonBenchmark -prof gc}
+ * to report the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatCompletionJsonBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private SkyworkAiTiangongApi.ChatCompletionRequest request;
+
+    private byte[] requestJson;
+
+    private SkyworkAiTiangongApi.ChatCompletionChunk textChunk;
+
+    private byte[] textChunkJson;
+
+    private byte[] toolCallChunkJson;
+
+    @Setup
+    public void setup() throws Exception {
+        List<SkyworkAiTiangongApi.ChatCompletionMessage> messages = new ArrayList<>();
+        messages.add(new SkyworkAiTiangongApi.ChatCompletionMessage("You are a helpful assistant.",
+                SkyworkAiTiangongApi.ChatCompletionMessage.Role.SYSTEM));
+        for (int i = 0; i < 8; i++) {
+            messages.add(new SkyworkAiTiangongApi.ChatCompletionMessage("天气怎么样？What's the weather like in city " + i + "?",
+                    SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER));
+            messages.add(new SkyworkAiTiangongApi.ChatCompletionMessage("晴，25 度。Sunny, 25 degrees.",
+                    SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT));
+        }
+        List<SkyworkAiTiangongApi.FunctionTool> tools = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tools.add(new SkyworkAiTiangongApi.FunctionTool(new SkyworkAiTiangongApi.FunctionTool.Function(
+                    "Get the current weather of a city", "weather" + i,
+                    Map.of("type", "object", "properties",
+                            Map.of("city", Map.of("type", "string"), "unit", Map.of("type", "string")),
+                            "required", List.of("city")))));
+        }
+        this.request = new SkyworkAiTiangongApi.ChatCompletionRequest(null, "SkyChat-MegaVerse", messages, true,
+                true, 0.95f, 0.7f, 1024, null, tools, SkyworkAiTiangongApi.ChatCompletionRequest.ToolChoiceBuilder.AUTO,
+                null);
+        this.requestJson = this.objectMapper.writeValueAsBytes(this.request);
+
+        this.textChunk = new SkyworkAiTiangongApi.ChatCompletionChunk("chatcmpl-1", "chat.completion.chunk",
+                1700000000L, "SkyChat-MegaVerse", "request-1",
+                List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(0,
+                        new SkyworkAiTiangongApi.ChatCompletionMessage("你好，", null), null)));
+        this.textChunkJson = this.objectMapper.writeValueAsBytes(this.textChunk);
+
+        var toolCall = new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall("call-1", "function",
+                new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction("weather0",
+                        "{\"city\": \"Beijing\", \"unit\": \"C\"}"));
+        var toolCallChunk = new SkyworkAiTiangongApi.ChatCompletionChunk("chatcmpl-1", "chat.completion.chunk",
+                1700000000L, "SkyChat-MegaVerse", "request-1",
+                List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(0,
+                        new SkyworkAiTiangongApi.ChatCompletionMessage(null,
+                                SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null, List.of(toolCall)),
+                        SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS)));
+        this.toolCallChunkJson = this.objectMapper.writeValueAsBytes(toolCallChunk);
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() throws Exception {
+        return this.objectMapper.writeValueAsBytes(this.request);
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionRequest deserializeRequest() throws Exception {
+        return this.objectMapper.readValue(this.requestJson, SkyworkAiTiangongApi.ChatCompletionRequest.class);
+    }
+
+    @Benchmark
+    public byte[] serializeTextChunk() throws Exception {
+        return this.objectMapper.writeValueAsBytes(this.textChunk);
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionChunk deserializeTextChunk() throws Exception {
+        return this.objectMapper.readValue(this.textChunkJson, SkyworkAiTiangongApi.ChatCompletionChunk.class);
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionChunk deserializeToolCallChunk() throws Exception {
+        return this.objectMapper.readValue(this.toolCallChunkJson, SkyworkAiTiangongApi.ChatCompletionChunk.class);
+    }
+
+}
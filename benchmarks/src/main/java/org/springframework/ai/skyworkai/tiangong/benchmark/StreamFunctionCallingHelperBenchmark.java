@@ -0,0 +1,87 @@
+package org.springframework.ai.skyworkai.tiangong.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongStreamFunctionCallingHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of merging the chunks of one streamed tool call, by folding them with
+ * {@code merge} and with the accumulator used by {@code chatCompletionStream}, for
+ * arguments of growing size.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar StreamFunctionCallingHelperBenchmark -prof gc}
+ * to report the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamFunctionCallingHelperBenchmark {
+
+    /**
+     * Number of argument fragments of the tool call, of 16 characters each.
+     */
+    @Param({ "16", "256", "1024" })
+    public int fragments;
+
+    private final SkyworkAiTiangongStreamFunctionCallingHelper helper = new SkyworkAiTiangongStreamFunctionCallingHelper();
+
+    private List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks;
+
+    @Setup
+    public void setup() {
+        this.chunks = new ArrayList<>(this.fragments + 1);
+        this.chunks.add(toolCallChunk("call-1", "weather", "", null));
+        for (int i = 0; i < this.fragments; i++) {
+            var finishReason = (i == this.fragments - 1 ? SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS : null);
+            this.chunks.add(toolCallChunk(null, null, String.format("{\"k%05d\":\"vvv\"}", i), finishReason));
+        }
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionChunk mergeToolCallArguments() {
+        SkyworkAiTiangongApi.ChatCompletionChunk merged = new SkyworkAiTiangongApi.ChatCompletionChunk(null, null, null,
+                null, null, null);
+        for (SkyworkAiTiangongApi.ChatCompletionChunk chunk : this.chunks) {
+            merged = this.helper.merge(merged, chunk);
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public SkyworkAiTiangongApi.ChatCompletionChunk accumulateToolCallArguments() {
+        SkyworkAiTiangongStreamFunctionCallingHelper.ChunkAccumulator accumulator = this.helper.accumulator();
+        for (SkyworkAiTiangongApi.ChatCompletionChunk chunk : this.chunks) {
+            accumulator.add(chunk);
+        }
+        return accumulator.toChunk();
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionChunk toolCallChunk(String id, String name, String arguments,
+            SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason) {
+        var toolCall = new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall(id, (id != null ? "function" : null),
+                new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction(name, arguments));
+        var delta = new SkyworkAiTiangongApi.ChatCompletionMessage(null,
+                (id != null ? SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT : null), null, List.of(toolCall));
+        return new SkyworkAiTiangongApi.ChatCompletionChunk("chatcmpl-1", "chat.completion.chunk", 1700000000L,
+                "SkyChat-MegaVerse", "request-1",
+                List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(0, delta, finishReason)));
+    }
+
+}
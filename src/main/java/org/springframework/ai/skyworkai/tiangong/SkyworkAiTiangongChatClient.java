@@ -1,5 +1,7 @@
 package org.springframework.ai.skyworkai.tiangong;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.ChatClient;
@@ -14,31 +16,119 @@ import org.springframework.ai.model.function.AbstractFunctionCallSupport;
 import org.springframework.ai.model.function.FunctionCallbackContext;
 import org.springframework.ai.retry.RetryUtils;
 import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongChatCompletionCache;
 import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongChatOptions;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongClientMetrics;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongFunctionToolCache;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongRequestHedger;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongTokenBudget;
 import org.springframework.ai.skyworkai.tiangong.util.ApiUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
-
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 public class SkyworkAiTiangongChatClient
         extends AbstractFunctionCallSupport<SkyworkAiTiangongApi.ChatCompletionMessage, SkyworkAiTiangongApi.ChatCompletionRequest, ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>
         implements ChatClient, StreamingChatClient {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final String REQUEST_ASSEMBLY_OBSERVATION = "skywork.tiangong.chat.request.assembly";
+
+    private static final String TOOL_ROUND_OBSERVATION = "skywork.tiangong.tool.round";
+
+    private static final String TOOL_CALL_OBSERVATION = "skywork.tiangong.tool.call";
+
+    /**
+     * Default options to be used for all chat requests, merged once into a request
+     * without messages, the template of every request.
+     */
+    private final SkyworkAiTiangongApi.ChatCompletionRequest defaultRequest;
     /**
-     * Default options to be used for all chat requests.
+     * Functions enabled by the default options.
      */
-    private SkyworkAiTiangongChatOptions defaultOptions;
+    private final Set<String> defaultFunctions;
+    /**
+     * Tool definitions of the registered function callbacks, serialized once.
+     */
+    private final SkyworkAiTiangongFunctionToolCache functionToolCache = new SkyworkAiTiangongFunctionToolCache();
     /**
      * Low-level Skywork AI Tiangong library.
      */
     private final SkyworkAiTiangongApi skyworkAiTiangongApi;
     private final RetryTemplate retryTemplate;
+    /**
+     * Scheduler running the function callbacks of streaming requests and of parallel
+     * tool calls.
+     */
+    private Scheduler toolCallScheduler = Schedulers.boundedElastic();
+    /**
+     * Whether the tool calls of one assistant message run concurrently.
+     */
+    private boolean parallelToolCalls = false;
+    /**
+     * Maximum number of tool calls of one assistant message running at the same time.
+     */
+    private int maxParallelToolCalls = 8;
+    /**
+     * Timeout of a single parallel tool call, none when null.
+     */
+    private Duration toolCallTimeout;
+    /**
+     * Backoff applied to failed streaming exchanges, no retry when null.
+     */
+    private RetryBackoffSpec streamRetry = Retry.backoff(2, Duration.ofMillis(500))
+            .maxBackoff(Duration.ofSeconds(10))
+            .jitter(0.5);
+    /**
+     * HTTP status codes of streaming exchanges that are retried.
+     */
+    private Set<Integer> streamRetryStatusCodes = Set.of(429, 500, 502, 503, 504);
+    /**
+     * Cache of non-streaming completions, disabled when null.
+     */
+    private SkyworkAiTiangongChatCompletionCache responseCache;
+    /**
+     * Hedger of slow non-streaming exchanges, disabled when null.
+     */
+    private SkyworkAiTiangongRequestHedger requestHedger;
+    /**
+     * Preflight check of the requests against the context window, none by default.
+     */
+    private SkyworkAiTiangongTokenBudget tokenBudget;
+    /**
+     * Maximum number of batch prompts in flight at the same time.
+     */
+    private int batchConcurrency = 16;
+    /**
+     * Whether batch results are emitted in the order of the prompts.
+     */
+    private boolean batchOrdered = false;
+    /**
+     * Listener of the function calling round trips.
+     */
+    private SkyworkAiTiangongClientMetrics metrics = SkyworkAiTiangongClientMetrics.NOOP;
+    /**
+     * Registry of the request assembly and function calling observations.
+     */
+    private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
     public SkyworkAiTiangongChatClient(SkyworkAiTiangongApi skyworkAiTiangongApi) {
         this(skyworkAiTiangongApi, SkyworkAiTiangongChatOptions.builder()
@@ -61,15 +151,135 @@ public class SkyworkAiTiangongChatClient
         Assert.notNull(options, "Options must not be null");
         Assert.notNull(retryTemplate, "RetryTemplate must not be null");
         this.skyworkAiTiangongApi = skyworkAiTiangongApi;
-        this.defaultOptions = options;
         this.retryTemplate = retryTemplate;
+        // The default options are read once, later changes to them are not seen
+        this.defaultFunctions = Set.copyOf(this.handleFunctionCallbackConfigurations(options, !IS_RUNTIME_CALL));
+        this.defaultRequest = mergeOptions(options, new SkyworkAiTiangongApi.ChatCompletionRequest(null, null, null));
     }
 
+    /**
+     * Set the scheduler the function callbacks of streaming requests and parallel tool
+     * calls run on. Defaults to {@link Schedulers#boundedElastic()}, which must stay a
+     * scheduler that allows blocking.
+     * @param toolCallScheduler the scheduler to use.
+     */
+    public void setToolCallScheduler(Scheduler toolCallScheduler) {
+        Assert.notNull(toolCallScheduler, "Tool call scheduler must not be null");
+        this.toolCallScheduler = toolCallScheduler;
+    }
+
+    /**
+     * Run the tool calls of one assistant message concurrently instead of one after
+     * another. The TOOL messages are still appended in the order of the tool calls.
+     * @param parallelToolCalls whether to run tool calls concurrently.
+     */
+    public void setParallelToolCalls(boolean parallelToolCalls) {
+        this.parallelToolCalls = parallelToolCalls;
+    }
+
+    /**
+     * @param maxParallelToolCalls maximum number of concurrent tool calls per message.
+     */
+    public void setMaxParallelToolCalls(int maxParallelToolCalls) {
+        Assert.isTrue(maxParallelToolCalls > 0, "Max parallel tool calls must be positive");
+        this.maxParallelToolCalls = maxParallelToolCalls;
+    }
+
+    /**
+     * @param toolCallTimeout timeout of a single parallel tool call, {@code null} for
+     * none.
+     */
+    public void setToolCallTimeout(Duration toolCallTimeout) {
+        this.toolCallTimeout = toolCallTimeout;
+    }
+
+    /**
+     * Set the backoff used to retry streaming exchanges that fail before the first chunk
+     * is emitted, e.g. {@code Retry.backoff(2, Duration.ofMillis(500)).jitter(0.5)}.
+     * @param streamRetry the backoff spec, {@code null} to disable retries.
+     */
+    public void setStreamRetry(RetryBackoffSpec streamRetry) {
+        this.streamRetry = streamRetry;
+    }
+
+    /**
+     * @param streamRetryStatusCodes HTTP status codes of streaming exchanges that are
+     * retried, connection errors are always retried.
+     */
+    public void setStreamRetryStatusCodes(Set<Integer> streamRetryStatusCodes) {
+        Assert.notNull(streamRetryStatusCodes, "Stream retry status codes must not be null");
+        this.streamRetryStatusCodes = streamRetryStatusCodes;
+    }
+
+    /**
+     * Serve repeated deterministic {@link #call(Prompt)} requests from the given cache.
+     * @param responseCache the cache to use, {@code null} to disable caching.
+     */
+    public void setResponseCache(SkyworkAiTiangongChatCompletionCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public SkyworkAiTiangongChatCompletionCache getResponseCache() {
+        return this.responseCache;
+    }
+
+    /**
+     * Hedge slow non-streaming exchanges, including the follow-up exchanges of tool
+     * calls. Combine with a load-balanced api to send the hedge to another member, and
+     * leave request coalescing off, which would join the hedge to the exchange it
+     * hedges.
+     * @param requestHedger the hedger to use, {@code null} to disable hedging.
+     */
+    public void setRequestHedger(SkyworkAiTiangongRequestHedger requestHedger) {
+        this.requestHedger = requestHedger;
+    }
+
+    public SkyworkAiTiangongRequestHedger getRequestHedger() {
+        return this.requestHedger;
+    }
+
+    /**
+     * Check every request against the context window before sending it, rejecting or
+     * trimming the requests that do not fit. Follow-up requests of tool calls are not
+     * checked.
+     * @param tokenBudget the budget to enforce, {@code null} to send requests unchecked.
+     */
+    public void setTokenBudget(SkyworkAiTiangongTokenBudget tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    public SkyworkAiTiangongTokenBudget getTokenBudget() {
+        return this.tokenBudget;
+    }
+
+    /**
+     * @param batchConcurrency default maximum number of batch prompts in flight.
+     */
+    public void setBatchConcurrency(int batchConcurrency) {
+        Assert.isTrue(batchConcurrency > 0, "Batch concurrency must be positive");
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    /**
+     * @param batchOrdered whether batch results are emitted in the order of the prompts
+     * by default, instead of as they complete.
+     */
+    public void setBatchOrdered(boolean batchOrdered) {
+        this.batchOrdered = batchOrdered;
+    }
 
     @Override
     public ChatResponse call(Prompt prompt) {
 
-        var request = createRequest(prompt, false);
+        var request = observeCreateRequest(prompt, false);
+
+        String cacheKey = (this.responseCache != null ? this.responseCache.keyOf(request) : null);
+        if (cacheKey != null) {
+            var cachedCompletion = this.responseCache.get(cacheKey);
+            if (cachedCompletion != null) {
+                return toChatResponse(cachedCompletion);
+            }
+        }
 
         return retryTemplate.execute(ctx -> {
 
@@ -81,16 +291,160 @@ public class SkyworkAiTiangongChatClient
                 return new ChatResponse(List.of());
             }
 
-            List<Generation> generations = chatCompletion.choices()
-                    .stream()
-                    .map(choice -> new Generation(choice.message().content(), toMap(chatCompletion.id(), choice))
-                            .withGenerationMetadata(ChatGenerationMetadata.from(choice.finishReason().name(), null)))
-                    .toList();
+            if (cacheKey != null) {
+                this.responseCache.put(cacheKey, chatCompletion);
+            }
 
-            return new ChatResponse(generations);
+            return toChatResponse(chatCompletion);
+        });
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #call(Prompt)}: the exchanges go through the
+     * {@code WebClient} and no thread waits for the generation. Function callbacks run on
+     * the {@link #setToolCallScheduler tool call scheduler}. Failed exchanges are retried
+     * with the {@link #setStreamRetry stream retry spec} instead of the blocking
+     * {@code RetryTemplate}, and are not hedged.
+     * @param prompt the prompt.
+     * @return the future chat response.
+     */
+    public CompletableFuture<ChatResponse> callAsync(Prompt prompt) {
+        return callReactive(prompt).toFuture();
+    }
+
+    /**
+     * Report the function calling round trips, the exchanges are reported by the api.
+     * @param metrics the metrics listener to use.
+     */
+    public void setMetrics(SkyworkAiTiangongClientMetrics metrics) {
+        Assert.notNull(metrics, "Metrics must not be null");
+        this.metrics = metrics;
+    }
+
+    /**
+     * Observe the request assembly, every function calling round and every function
+     * callback. Only the model and the function names are recorded, never the payloads.
+     * The exchanges are observed by the api.
+     * @param observationRegistry the registry to use.
+     */
+    public void setObservationRegistry(ObservationRegistry observationRegistry) {
+        Assert.notNull(observationRegistry, "Observation registry must not be null");
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Call every prompt of the batch with the default concurrency and ordering.
+     * @param prompts the prompts.
+     * @return one result per prompt.
+     * @see #callBatch(Flux, int, boolean)
+     */
+    public Flux<BatchResult> callBatch(Collection<Prompt> prompts) {
+        return callBatch(Flux.fromIterable(prompts));
+    }
+
+    /**
+     * Call every prompt of the batch with the default concurrency and ordering.
+     * @param prompts the prompts.
+     * @return one result per prompt.
+     * @see #callBatch(Flux, int, boolean)
+     */
+    public Flux<BatchResult> callBatch(Flux<Prompt> prompts) {
+        return callBatch(prompts, this.batchConcurrency, this.batchOrdered);
+    }
+
+    /**
+     * Call every prompt of the batch through {@link #callAsync(Prompt)}, at most
+     * {@code maxConcurrency} at a time. The prompts are requested as slots free up, so
+     * a large or unbounded source is not buffered. A failed prompt yields a failed
+     * result instead of ending the batch. The prompts share the rate, concurrency and
+     * circuit breaker limits of the api.
+     * @param prompts the prompts.
+     * @param maxConcurrency maximum number of prompts in flight.
+     * @param ordered whether results are emitted in the order of the prompts, instead of
+     * as they complete.
+     * @return one result per prompt.
+     */
+    public Flux<BatchResult> callBatch(Flux<Prompt> prompts, int maxConcurrency, boolean ordered) {
+        Assert.notNull(prompts, "Prompts must not be null");
+        Assert.isTrue(maxConcurrency > 0, "Max concurrency must be positive");
+
+        Function<Tuple2<Long, Prompt>, Mono<BatchResult>> call = indexed -> callReactive(indexed.getT2())
+                .map(response -> new BatchResult(indexed.getT1(), indexed.getT2(), response, null))
+                .onErrorResume(ex -> Mono.just(new BatchResult(indexed.getT1(), indexed.getT2(), null, ex)));
+
+        Flux<Tuple2<Long, Prompt>> indexedPrompts = prompts.index();
+        return (ordered ? indexedPrompts.flatMapSequential(call, maxConcurrency)
+                : indexedPrompts.flatMap(call, maxConcurrency));
+    }
+
+    private Mono<ChatResponse> callReactive(Prompt prompt) {
+        return Mono.defer(() -> {
+
+            var request = observeCreateRequest(prompt, false);
+
+            String cacheKey = (this.responseCache != null ? this.responseCache.keyOf(request) : null);
+            if (cacheKey != null) {
+                var cachedCompletion = this.responseCache.get(cacheKey);
+                if (cachedCompletion != null) {
+                    return Mono.just(toChatResponse(cachedCompletion));
+                }
+            }
+
+            return callWithFunctionSupportAsync(request).map(completionEntity -> {
+                var chatCompletion = completionEntity.getBody();
+                if (chatCompletion == null) {
+                    log.warn("No chat completion returned for prompt: {}", prompt);
+                    return new ChatResponse(List.of());
+                }
+
+                if (cacheKey != null) {
+                    this.responseCache.put(cacheKey, chatCompletion);
+                }
+
+                return toChatResponse(chatCompletion);
+            });
         });
     }
 
+    /**
+     * Non-blocking counterpart of {@link #callWithFunctionSupport}, sending follow-up
+     * requests until the model stops calling functions.
+     */
+    private Mono<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> callWithFunctionSupportAsync(
+            SkyworkAiTiangongApi.ChatCompletionRequest request) {
+
+        return retryingChatCompletionAsync(request).flatMap(completionEntity -> {
+            if (!this.isToolFunctionCall(completionEntity)) {
+                return Mono.just(completionEntity);
+            }
+            return createToolResponseRequestAsync(request, this.doGetToolResponseMessage(completionEntity))
+                    .flatMap(this::callWithFunctionSupportAsync);
+        });
+    }
+
+    private Mono<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> retryingChatCompletionAsync(
+            SkyworkAiTiangongApi.ChatCompletionRequest request) {
+
+        Mono<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> completion = Mono
+                .defer(() -> this.skyworkAiTiangongApi.chatCompletionEntityAsync(request));
+        if (this.streamRetry == null) {
+            return completion;
+        }
+        return completion.retryWhen(this.streamRetry
+                .filter(this::isRetryableStreamError)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private ChatResponse toChatResponse(SkyworkAiTiangongApi.ChatCompletion chatCompletion) {
+        List<Generation> generations = chatCompletion.choices()
+                .stream()
+                .map(choice -> new Generation(choice.message().content(), toMap(chatCompletion.id(), choice))
+                        .withGenerationMetadata(ChatGenerationMetadata.from(choice.finishReason().name(), null)))
+                .toList();
+
+        return new ChatResponse(generations);
+    }
+
     private Map<String, Object> toMap(String id, SkyworkAiTiangongApi.ChatCompletion.Choice choice) {
         Map<String, Object> map = new HashMap<>();
 
@@ -107,49 +461,72 @@ public class SkyworkAiTiangongChatClient
 
     @Override
     public Flux<ChatResponse> stream(Prompt prompt) {
-        var request = createRequest(prompt, true);
+        // assembled on subscription, so that a rejected request is signalled as an error
+        return Flux.defer(() -> streamResponses(observeCreateRequest(prompt, true), new StreamState()));
+    }
 
-        return retryTemplate.execute(ctx -> {
+    /**
+     * Converts every chunk straight into a {@link ChatResponse}. A chunk calling
+     * functions is answered by a follow-up request, whose stream continues this one.
+     */
+    private Flux<ChatResponse> streamResponses(SkyworkAiTiangongApi.ChatCompletionRequest request, StreamState state) {
+        return this.retryingChatCompletionStream(request)
+                .concatMap(chunk -> (isToolCallChunk(chunk)
+                        ? createStreamingToolResponseRequest(request, chunk)
+                            .flatMapMany(toolResponseRequest -> streamResponses(toolResponseRequest, state))
+                        : Flux.just(state.toChatResponse(chunk))));
+    }
 
-            var completionChunks = this.skyworkAiTiangongApi.chatCompletionStream(request);
+    private static boolean isToolCallChunk(SkyworkAiTiangongApi.ChatCompletionChunk chunk) {
+        var choices = chunk.choices();
+        if (CollectionUtils.isEmpty(choices)) {
+            return false;
+        }
+        var delta = choices.get(0).delta();
+        return delta != null && !CollectionUtils.isEmpty(delta.toolCalls());
+    }
 
-            // For chunked responses, only the first chunk contains the choice role.
-            // The rest of the chunks with same ID share the same role.
-            ConcurrentHashMap<String, String> roleMap = new ConcurrentHashMap<>();
+    private Mono<SkyworkAiTiangongApi.ChatCompletionRequest> createStreamingToolResponseRequest(
+            SkyworkAiTiangongApi.ChatCompletionRequest request, SkyworkAiTiangongApi.ChatCompletionChunk chunk) {
 
-            return completionChunks.map(chunk -> toChatCompletion(chunk)).map(chatCompletion -> {
+        return createToolResponseRequestAsync(request, chunk.choices().get(0).delta());
+    }
 
-                chatCompletion = handleFunctionCallOrReturn(request, ResponseEntity.of(Optional.of(chatCompletion)))
-                        .getBody();
+    /**
+     * Streams the request, retrying the HTTP exchange with the {@link #setStreamRetry
+     * stream retry spec} as long as no chunk has been emitted yet. Once the first token
+     * went out a retry would duplicate it, so later failures are propagated.
+     */
+    private Flux<SkyworkAiTiangongApi.ChatCompletionChunk> retryingChatCompletionStream(
+            SkyworkAiTiangongApi.ChatCompletionRequest request) {
 
-                @SuppressWarnings("null")
-                String id = chatCompletion.id();
+        if (this.streamRetry == null) {
+            return this.skyworkAiTiangongApi.chatCompletionStream(request);
+        }
 
-                List<Generation> generations = chatCompletion.choices().stream().map(choice -> {
-                    if (choice.message().role() != null) {
-                        roleMap.putIfAbsent(id, choice.message().role().name());
-                    }
-                    String finish = (choice.finishReason() != null ? choice.finishReason().name() : "");
-                    var generation = new Generation(choice.message().content(),
-                            Map.of("id", id, "role", roleMap.get(id), "finishReason", finish));
-                    if (choice.finishReason() != null) {
-                        generation = generation
-                                .withGenerationMetadata(ChatGenerationMetadata.from(choice.finishReason().name(), null));
-                    }
-                    return generation;
-                }).toList();
-                return new ChatResponse(generations);
-            });
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean(false);
+            return Flux.defer(() -> this.skyworkAiTiangongApi.chatCompletionStream(request))
+                    .doOnNext(chunk -> emitted.set(true))
+                    .retryWhen(this.streamRetry
+                            .filter(throwable -> !emitted.get() && isRetryableStreamError(throwable))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
         });
     }
 
-    private SkyworkAiTiangongApi.ChatCompletion toChatCompletion(SkyworkAiTiangongApi.ChatCompletionChunk chunk) {
-        List<SkyworkAiTiangongApi.ChatCompletion.Choice> choices = chunk.choices()
-                .stream()
-                .map(cc -> new SkyworkAiTiangongApi.ChatCompletion.Choice(cc.index(), cc.delta(), cc.finishReason()))
-                .toList();
+    private boolean isRetryableStreamError(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException responseException) {
+            return this.streamRetryStatusCodes.contains(responseException.getStatusCode().value());
+        }
+        // Connection refused or reset before the response, or a premature close
+        return throwable instanceof WebClientRequestException || throwable instanceof IOException;
+    }
 
-        return new SkyworkAiTiangongApi.ChatCompletion(chunk.id(), "chat.completion", chunk.created(), chunk.model(), choices, chunk.requestId(),null);
+    private SkyworkAiTiangongApi.ChatCompletionRequest observeCreateRequest(Prompt prompt, boolean stream) {
+        return Observation.createNotStarted(REQUEST_ASSEMBLY_OBSERVATION, this.observationRegistry)
+                .contextualName("request assembly")
+                .lowCardinalityKeyValue("stream", String.valueOf(stream))
+                .observe(() -> createRequest(prompt, stream));
     }
 
     /**
@@ -157,24 +534,14 @@ public class SkyworkAiTiangongChatClient
      */
     SkyworkAiTiangongApi.ChatCompletionRequest createRequest(Prompt prompt, boolean stream) {
 
-        Set<String> functionsForThisRequest = new HashSet<>();
-
         var chatCompletionMessages = prompt.getInstructions()
                 .stream()
                 .map(m -> new SkyworkAiTiangongApi.ChatCompletionMessage(m.getContent(),
                         SkyworkAiTiangongApi.ChatCompletionMessage.Role.valueOf(m.getMessageType().name())))
                 .toList();
 
-        var request = new SkyworkAiTiangongApi.ChatCompletionRequest(null, chatCompletionMessages, stream);
-
-        if (this.defaultOptions != null) {
-            Set<String> defaultEnabledFunctions = this.handleFunctionCallbackConfigurations(this.defaultOptions,
-                    !IS_RUNTIME_CALL);
-
-            functionsForThisRequest.addAll(defaultEnabledFunctions);
-
-            request = ModelOptionsUtils.merge(request, this.defaultOptions, SkyworkAiTiangongApi.ChatCompletionRequest.class);
-        }
+        var request = withMessages(this.defaultRequest, chatCompletionMessages, stream);
+        Set<String> functionsForThisRequest = this.defaultFunctions;
 
         if (prompt.getOptions() != null) {
             if (prompt.getOptions() instanceof ChatOptions runtimeOptions) {
@@ -183,10 +550,12 @@ public class SkyworkAiTiangongChatClient
 
                 Set<String> promptEnabledFunctions = this.handleFunctionCallbackConfigurations(updatedRuntimeOptions,
                         IS_RUNTIME_CALL);
-                functionsForThisRequest.addAll(promptEnabledFunctions);
+                if (!promptEnabledFunctions.isEmpty()) {
+                    functionsForThisRequest = new HashSet<>(functionsForThisRequest);
+                    functionsForThisRequest.addAll(promptEnabledFunctions);
+                }
 
-                request = ModelOptionsUtils.merge(updatedRuntimeOptions, request,
-                        SkyworkAiTiangongApi.ChatCompletionRequest.class);
+                request = mergeOptions(updatedRuntimeOptions, request);
             }
             else {
                 throw new IllegalArgumentException("Prompt options are not of type ChatOptions: "
@@ -196,21 +565,134 @@ public class SkyworkAiTiangongChatClient
 
         // Add the enabled functions definitions to the request's tools parameter.
         if (!CollectionUtils.isEmpty(functionsForThisRequest)) {
+            request = withTools(request, this.getFunctionTools(functionsForThisRequest));
+        }
 
-            request = ModelOptionsUtils.merge(
-                    SkyworkAiTiangongChatOptions.builder().withTools(this.getFunctionTools(functionsForThisRequest)).build(),
-                    request, SkyworkAiTiangongApi.ChatCompletionRequest.class);
+        if (this.tokenBudget != null) {
+            request = this.tokenBudget.enforce(request);
         }
 
         return request;
     }
 
+    /**
+     * Field-level counterpart of {@code ModelOptionsUtils.merge(options, request)}: every
+     * request field set in the options replaces the one of the request.
+     */
+    private static SkyworkAiTiangongApi.ChatCompletionRequest mergeOptions(SkyworkAiTiangongChatOptions options,
+                                                                           SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        return new SkyworkAiTiangongApi.ChatCompletionRequest(
+                request.requestId(),
+                (options.getModel() != null ? options.getModel() : request.model()),
+                request.messages(),
+                (options.getDoSample() != null ? options.getDoSample() : request.doSample()),
+                request.stream(),
+                (options.getTemperature() != null ? options.getTemperature() : request.temperature()),
+                (options.getTopP() != null ? options.getTopP() : request.topP()),
+                (options.getMaxTokens() != null ? options.getMaxTokens() : request.maxTokens()),
+                (options.getStop() != null ? options.getStop() : request.stop()),
+                (options.getTools() != null ? options.getTools() : request.tools()),
+                (options.getToolChoice() != null ? toolChoice(options.getToolChoice()) : request.toolChoice()),
+                (options.getUser() != null ? options.getUser() : request.user()));
+    }
+
+    private static String toolChoice(SkyworkAiTiangongApi.ChatCompletionRequest.ToolChoice toolChoice) {
+        return switch (toolChoice) {
+            case AUTO -> "auto";
+        };
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionRequest withMessages(SkyworkAiTiangongApi.ChatCompletionRequest request,
+                                                                           List<SkyworkAiTiangongApi.ChatCompletionMessage> messages,
+                                                                           Boolean stream) {
+        return new SkyworkAiTiangongApi.ChatCompletionRequest(request.requestId(), request.model(), messages,
+                request.doSample(), stream, request.temperature(), request.topP(), request.maxTokens(), request.stop(),
+                request.tools(), request.toolChoice(), request.user());
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionRequest withTools(SkyworkAiTiangongApi.ChatCompletionRequest request,
+                                                                        List<SkyworkAiTiangongApi.FunctionTool> tools) {
+        return new SkyworkAiTiangongApi.ChatCompletionRequest(request.requestId(), request.model(), request.messages(),
+                request.doSample(), request.stream(), request.temperature(), request.topP(), request.maxTokens(),
+                request.stop(), tools, request.toolChoice(), request.user());
+    }
+
     private List<SkyworkAiTiangongApi.FunctionTool> getFunctionTools(Set<String> functionNames) {
-        return this.resolveFunctionCallbacks(functionNames).stream().map(functionCallback -> {
-            var function = new SkyworkAiTiangongApi.FunctionTool.Function(functionCallback.getDescription(),
-                    functionCallback.getName(), functionCallback.getInputTypeSchema());
-            return new SkyworkAiTiangongApi.FunctionTool(function);
-        }).toList();
+        return this.functionToolCache.getFunctionTools(this.resolveFunctionCallbacks(functionNames));
+    }
+
+    /**
+     * Outcome of one prompt of a batch.
+     *
+     * @param index position of the prompt in the batch.
+     * @param prompt the prompt.
+     * @param response the chat response, {@code null} if the call failed.
+     * @param error the failure of the call, {@code null} if it succeeded.
+     */
+    public record BatchResult(long index, Prompt prompt, ChatResponse response, Throwable error) {
+
+        public boolean isSuccess() {
+            return this.error == null;
+        }
+
+    }
+
+    /**
+     * Role and metadata of the completion being streamed. For chunked responses, only
+     * the first chunk contains the choice role, the rest of the chunks with the same id
+     * share it, and all but the last share the same metadata. Driven sequentially by the
+     * operators of one stream.
+     */
+    private static final class StreamState {
+
+        private String id;
+
+        private String role;
+
+        /**
+         * Metadata of the chunks of the current completion without finish reason.
+         */
+        private Map<String, Object> metadata;
+
+        private ChatResponse toChatResponse(SkyworkAiTiangongApi.ChatCompletionChunk chunk) {
+            var choices = chunk.choices();
+            if (choices.size() == 1) {
+                return new ChatResponse(List.of(toGeneration(chunk.id(), choices.get(0))));
+            }
+            List<Generation> generations = new ArrayList<>(choices.size());
+            for (SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice choice : choices) {
+                generations.add(toGeneration(chunk.id(), choice));
+            }
+            return new ChatResponse(generations);
+        }
+
+        private Generation toGeneration(String id, SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice choice) {
+            var delta = choice.delta();
+            if (!Objects.equals(id, this.id)) {
+                this.id = id;
+                this.role = null;
+                this.metadata = null;
+            }
+            if (this.role == null && delta.role() != null) {
+                this.role = delta.role().name();
+                this.metadata = null;
+            }
+            if (choice.finishReason() == null) {
+                if (this.metadata == null) {
+                    this.metadata = metadata("");
+                }
+                return new Generation(delta.content(), this.metadata);
+            }
+            String finish = choice.finishReason().name();
+            return new Generation(delta.content(), metadata(finish))
+                    .withGenerationMetadata(ChatGenerationMetadata.from(finish, null));
+        }
+
+        private Map<String, Object> metadata(String finishReason) {
+            return Map.of("id", (this.id != null ? this.id : ""), "role", (this.role != null ? this.role : ""),
+                    "finishReason", finishReason);
+        }
+
     }
 
     //
@@ -221,30 +703,122 @@ public class SkyworkAiTiangongChatClient
                                                                                      SkyworkAiTiangongApi.ChatCompletionMessage responseMessage,
                                                                                      List<SkyworkAiTiangongApi.ChatCompletionMessage> conversationHistory) {
 
+        Observation observation = toolRoundObservation(previousRequest, responseMessage);
+        return observation.observe(() -> createToolResponseRequest(previousRequest, responseMessage, conversationHistory,
+                observation));
+    }
+
+    private Observation toolRoundObservation(SkyworkAiTiangongApi.ChatCompletionRequest previousRequest,
+                                             SkyworkAiTiangongApi.ChatCompletionMessage responseMessage) {
+        return Observation.createNotStarted(TOOL_ROUND_OBSERVATION, this.observationRegistry)
+                .contextualName("tool round")
+                .lowCardinalityKeyValue("model", String.valueOf(previousRequest.model()))
+                .highCardinalityKeyValue("tool.calls", String.valueOf(responseMessage.toolCalls().size()));
+    }
+
+    private SkyworkAiTiangongApi.ChatCompletionRequest createToolResponseRequest(SkyworkAiTiangongApi.ChatCompletionRequest previousRequest,
+                                                                                 SkyworkAiTiangongApi.ChatCompletionMessage responseMessage,
+                                                                                 List<SkyworkAiTiangongApi.ChatCompletionMessage> conversationHistory,
+                                                                                 Observation round) {
+
         // Every tool-call item requires a separate function call and a response (TOOL)
         // message.
-        for (SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall : responseMessage.toolCalls()) {
+        var toolCalls = responseMessage.toolCalls();
+        this.metrics.onToolRound(previousRequest.model(), toolCalls.size());
+        if (this.parallelToolCalls && toolCalls.size() > 1) {
+            // Only reached from the blocking call(), whose caller thread is not a worker
+            // of the tool call scheduler
+            conversationHistory.addAll(callFunctionsInParallel(toolCalls, round).block());
+        }
+        else {
+            for (SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall : toolCalls) {
+                // Add the function response to the conversation.
+                conversationHistory.add(callFunction(toolCall, round));
+            }
+        }
 
-            var functionName = toolCall.function().name();
-            String functionArguments = toolCall.function().arguments();
+        // Recursively call chatCompletionWithTools until the model doesn't call a
+        // functions anymore.
+        return withMessages(previousRequest, conversationHistory, previousRequest.stream());
+    }
 
-            if (!this.functionCallbackRegister.containsKey(functionName)) {
-                throw new IllegalStateException("No function callback found for function name: " + functionName);
+    /**
+     * Non-blocking counterpart of the function calling round of
+     * {@link #handleFunctionCallOrReturn}. The tool callbacks run on the
+     * {@link #setToolCallScheduler tool call scheduler}, off the event loop, and no
+     * worker of that scheduler waits for another one.
+     */
+    private Mono<SkyworkAiTiangongApi.ChatCompletionRequest> createToolResponseRequestAsync(
+            SkyworkAiTiangongApi.ChatCompletionRequest previousRequest,
+            SkyworkAiTiangongApi.ChatCompletionMessage responseMessage) {
+
+        return Mono.defer(() -> {
+            var toolCalls = responseMessage.toolCalls();
+            Observation round = toolRoundObservation(previousRequest, responseMessage).start();
+            this.metrics.onToolRound(previousRequest.model(), toolCalls.size());
+
+            Mono<List<SkyworkAiTiangongApi.ChatCompletionMessage>> toolMessages;
+            if (this.parallelToolCalls && toolCalls.size() > 1) {
+                toolMessages = callFunctionsInParallel(toolCalls, round);
+            }
+            else {
+                toolMessages = Mono.fromCallable(() -> {
+                    List<SkyworkAiTiangongApi.ChatCompletionMessage> messages = new ArrayList<>(toolCalls.size());
+                    for (SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall : toolCalls) {
+                        messages.add(callFunction(toolCall, round));
+                    }
+                    return messages;
+                }).subscribeOn(this.toolCallScheduler);
             }
+            return toolMessages.map(messages -> {
+                        var userMessages = this.doGetUserMessages(previousRequest);
+                        List<SkyworkAiTiangongApi.ChatCompletionMessage> conversationHistory = new ArrayList<>(
+                                userMessages.size() + 1 + messages.size());
+                        conversationHistory.addAll(userMessages);
+                        conversationHistory.add(responseMessage);
+                        conversationHistory.addAll(messages);
+                        return withMessages(previousRequest, conversationHistory, previousRequest.stream());
+                    })
+                    .doOnError(round::error)
+                    .doFinally(signal -> round.stop());
+        });
+    }
+
+    /**
+     * Run independent tool calls concurrently on the tool call scheduler, the TOOL
+     * messages keep the order of the tool calls.
+     */
+    private Mono<List<SkyworkAiTiangongApi.ChatCompletionMessage>> callFunctionsInParallel(
+            List<SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall> toolCalls, Observation round) {
+
+        return Flux.fromIterable(toolCalls)
+                .flatMapSequential(toolCall -> {
+                    Mono<SkyworkAiTiangongApi.ChatCompletionMessage> toolMessage = Mono
+                            .fromCallable(() -> callFunction(toolCall, round))
+                            .subscribeOn(this.toolCallScheduler);
+                    return (this.toolCallTimeout != null ? toolMessage.timeout(this.toolCallTimeout) : toolMessage);
+                }, this.maxParallelToolCalls)
+                .collectList();
+    }
+
+    private SkyworkAiTiangongApi.ChatCompletionMessage callFunction(SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall,
+                                                                    Observation round) {
 
-            String functionResponse = this.functionCallbackRegister.get(functionName).call(functionArguments);
+        var functionName = toolCall.function().name();
+        String functionArguments = toolCall.function().arguments();
 
-            // Add the function response to the conversation.
-            conversationHistory
-                    .add(new SkyworkAiTiangongApi.ChatCompletionMessage(functionResponse, SkyworkAiTiangongApi.ChatCompletionMessage.Role.TOOL, functionName, null));
+        if (!this.functionCallbackRegister.containsKey(functionName)) {
+            throw new IllegalStateException("No function callback found for function name: " + functionName);
         }
 
-        // Recursively call chatCompletionWithTools until the model doesn't call a
-        // functions anymore.
-        SkyworkAiTiangongApi.ChatCompletionRequest newRequest = new SkyworkAiTiangongApi.ChatCompletionRequest(previousRequest.requestId(), conversationHistory, false);
-        newRequest = ModelOptionsUtils.merge(newRequest, previousRequest, SkyworkAiTiangongApi.ChatCompletionRequest.class);
+        // parallel calls run on other threads, the round is their explicit parent
+        String functionResponse = Observation.createNotStarted(TOOL_CALL_OBSERVATION, this.observationRegistry)
+                .contextualName("tool call " + functionName)
+                .parentObservation(round)
+                .lowCardinalityKeyValue("function", functionName)
+                .observe(() -> this.functionCallbackRegister.get(functionName).call(functionArguments));
 
-        return newRequest;
+        return new SkyworkAiTiangongApi.ChatCompletionMessage(functionResponse, SkyworkAiTiangongApi.ChatCompletionMessage.Role.TOOL, functionName, null);
     }
 
     @Override
@@ -260,6 +834,9 @@ public class SkyworkAiTiangongChatClient
 
     @Override
     protected ResponseEntity<SkyworkAiTiangongApi.ChatCompletion> doChatCompletion(SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        if (this.requestHedger != null) {
+            return this.requestHedger.execute(() -> this.skyworkAiTiangongApi.chatCompletionEntity(request));
+        }
         return this.skyworkAiTiangongApi.chatCompletionEntity(request);
     }
 
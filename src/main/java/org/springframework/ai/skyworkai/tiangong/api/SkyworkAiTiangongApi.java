@@ -2,37 +2,85 @@ package org.springframework.ai.skyworkai.tiangong.api;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.retry.NonTransientAiException;
 import org.springframework.ai.retry.RetryUtils;
+import org.springframework.ai.retry.TransientAiException;
 import org.springframework.ai.skyworkai.tiangong.util.ApiUtils;
 import org.springframework.boot.context.properties.bind.ConstructorBinding;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class SkyworkAiTiangongApi {
 
     private static final Logger logger = LoggerFactory.getLogger(SkyworkAiTiangongApi.class);
-    private static final Predicate<String> SSE_DONE_PREDICATE = "[DONE]"::equals;
     private static final String REQUEST_BODY_NULL_ERROR = "The request body can not be null.";
 
+    private static final String CHAT_COMPLETIONS_ENDPOINT = "chat.completions";
+
+    private static final String EXCHANGE_OBSERVATION = "skywork.tiangong.http.exchange";
+
+    private static final String STREAM_WINDOW_OBSERVATION = "skywork.tiangong.stream.window";
+
     private final RestClient restClient;
 
     private final WebClient webClient;
 
+    private final Map<String, CompletableFuture<ResponseEntity<ChatCompletion>>> inFlightCompletions = new ConcurrentHashMap<>();
+
+    private final Map<String, Flux<ChatCompletionChunk>> inFlightStreams = new ConcurrentHashMap<>();
+
+    private volatile boolean requestCoalescing = false;
+
+    private volatile boolean streamCoalescing = false;
+
+    private volatile int streamJoinLimit = 32;
+
+    private volatile SkyworkAiTiangongRateLimiter rateLimiter;
+
+    private volatile SkyworkAiTiangongConcurrencyLimiter concurrencyLimiter;
+
+    private volatile SkyworkAiTiangongCircuitBreaker circuitBreaker;
+
+    private volatile SkyworkAiTiangongClientMetrics metrics = SkyworkAiTiangongClientMetrics.NOOP;
+
+    private volatile ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
     /**
      * Create a new client api with DEFAULT_BASE_URL
      * @param apiKey Skywork AI Tiangong api Key.
@@ -50,6 +98,18 @@ public class SkyworkAiTiangongApi {
         this(baseUrl, apiKey, RestClient.builder(), RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER);
     }
 
+    /**
+     * Create a new client api on top of a shared transport.
+     * @param baseUrl api base URL.
+     * @param apiKey Skywork AI Tiangong api Key.
+     * @param httpTransport transport shared by the sync and streaming clients.
+     */
+    public SkyworkAiTiangongApi(String baseUrl, String apiKey, SkyworkAiTiangongHttpTransport httpTransport) {
+        this(baseUrl, apiKey, RestClient.builder().requestFactory(httpTransport.getRequestFactory()),
+                WebClient.builder().clientConnector(httpTransport.getClientConnector()),
+                RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER);
+    }
+
     /**
      * Create a new client api.
      * @param baseUrl api base URL.
@@ -59,6 +119,19 @@ public class SkyworkAiTiangongApi {
      */
     public SkyworkAiTiangongApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
                                 ResponseErrorHandler responseErrorHandler) {
+        this(baseUrl, apiKey, restClientBuilder, WebClient.builder(), responseErrorHandler);
+    }
+
+    /**
+     * Create a new client api.
+     * @param baseUrl api base URL.
+     * @param apiKey Skywork AI Tiangong api Key.
+     * @param restClientBuilder RestClient builder.
+     * @param webClientBuilder WebClient builder, used for streaming requests.
+     * @param responseErrorHandler Response error handler.
+     */
+    public SkyworkAiTiangongApi(String baseUrl, String apiKey, RestClient.Builder restClientBuilder,
+                                WebClient.Builder webClientBuilder, ResponseErrorHandler responseErrorHandler) {
 
         Consumer<HttpHeaders> jsonContentHeaders = ApiUtils.getJsonContentHeaders(apiKey);
 
@@ -67,7 +140,101 @@ public class SkyworkAiTiangongApi {
                 .defaultStatusHandler(responseErrorHandler)
                 .build();
 
-        this.webClient = WebClient.builder().baseUrl(baseUrl).defaultHeaders(jsonContentHeaders).build();
+        this.webClient = webClientBuilder.baseUrl(baseUrl).defaultHeaders(jsonContentHeaders).build();
+    }
+
+    /**
+     * Create an api without clients of its own, for subclasses that override every
+     * exchange.
+     */
+    protected SkyworkAiTiangongApi() {
+        this.restClient = null;
+        this.webClient = null;
+    }
+
+    /**
+     * Let concurrent {@link #chatCompletionEntity} calls with the same canonical request
+     * share one upstream exchange.
+     * @param requestCoalescing whether to coalesce identical in-flight requests.
+     */
+    public void setRequestCoalescing(boolean requestCoalescing) {
+        this.requestCoalescing = requestCoalescing;
+    }
+
+    /**
+     * Let concurrent {@link #chatCompletionStream} subscribers with the same canonical
+     * request share one upstream exchange, multicasting its chunks.
+     * @param streamCoalescing whether to coalesce identical in-flight streams.
+     */
+    public void setStreamCoalescing(boolean streamCoalescing) {
+        this.streamCoalescing = streamCoalescing;
+    }
+
+    /**
+     * Number of chunks after which a coalesced stream stops accepting new subscribers,
+     * which open a stream of their own from then on. Bounds the chunks held for replay
+     * to twice this number per shared stream.
+     * @param streamJoinLimit the join limit, in chunks.
+     */
+    public void setStreamJoinLimit(int streamJoinLimit) {
+        Assert.isTrue(streamJoinLimit > 0, "Stream join limit must be positive");
+        this.streamJoinLimit = streamJoinLimit;
+    }
+
+    /**
+     * Throttle the requests of this api key on the client side.
+     * @param rateLimiter the rate limiter to use, {@code null} for no throttling.
+     */
+    public void setRateLimiter(SkyworkAiTiangongRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Adaptively limit the requests in flight of this api key.
+     * @param concurrencyLimiter the concurrency limiter to use, {@code null} for no
+     * limit.
+     */
+    public void setConcurrencyLimiter(SkyworkAiTiangongConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public SkyworkAiTiangongConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Fail fast while the chat completions endpoint is failing.
+     * @param circuitBreaker the circuit breaker to use, {@code null} for none.
+     */
+    public void setCircuitBreaker(SkyworkAiTiangongCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public SkyworkAiTiangongCircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * Report latencies, token usage and finish reasons of the exchanges.
+     * @param metrics the metrics listener to use.
+     */
+    public void setMetrics(SkyworkAiTiangongClientMetrics metrics) {
+        Assert.notNull(metrics, "Metrics must not be null");
+        this.metrics = metrics;
+    }
+
+    public SkyworkAiTiangongClientMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Observe the HTTP exchanges and the windows of streams. Only the model and the
+     * stream flag are recorded, never the payloads.
+     * @param observationRegistry the registry to use.
+     */
+    public void setObservationRegistry(ObservationRegistry observationRegistry) {
+        Assert.notNull(observationRegistry, "Observation registry must not be null");
+        this.observationRegistry = observationRegistry;
     }
 
     // --------------------------------------------------------------------------
@@ -407,6 +574,7 @@ public class SkyworkAiTiangongApi {
      * @param model The model used for the chat completion.
      * @param choices A list of chat completion choices. Can be more than one if n is
      * greater than 1.
+     * @param usage Usage statistics of the completion, only on the last chunk.
      */
     @JsonInclude(JsonInclude.Include.NON_NULL)
     public record ChatCompletionChunk(
@@ -416,9 +584,18 @@ public class SkyworkAiTiangongApi {
             @JsonProperty("created") Long created,
             @JsonProperty("model") String model,
             @JsonProperty("request_id") String requestId,
-            @JsonProperty("choices") List<ChatCompletionChunk.ChunkChoice> choices) {
+            @JsonProperty("choices") List<ChatCompletionChunk.ChunkChoice> choices,
+            @JsonProperty("usage") Usage usage) {
         // @formatter:on
 
+        /**
+         * Create a chat completion chunk without usage statistics.
+         */
+        public ChatCompletionChunk(String id, String object, Long created, String model, String requestId,
+                List<ChatCompletionChunk.ChunkChoice> choices) {
+            this(id, object, created, model, requestId, choices, null);
+        }
+
         /**
          * Chat completion choice.
          *
@@ -499,15 +676,159 @@ public class SkyworkAiTiangongApi {
         Assert.notNull(chatRequest, "The request body can not be null.");
         Assert.isTrue(!chatRequest.stream(), "Request must set the steam property to false.");
 
-        return this.restClient.post()
-                .uri("/api/paas/v4/chat/completions")
-                .body(chatRequest)
-                .retrieve()
-                .toEntity(SkyworkAiTiangongApi.ChatCompletion.class);
+        if (!this.requestCoalescing) {
+            return exchangeChatCompletion(chatRequest);
+        }
+
+        // Single flight: concurrent callers with the same canonical request share one exchange.
+        String key = canonicalKey(chatRequest);
+        CompletableFuture<ResponseEntity<ChatCompletion>> call = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<ChatCompletion>> inFlight = this.inFlightCompletions.putIfAbsent(key, call);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            }
+            catch (CancellationException ex) {
+                // the leader was cancelled, its outcome is not ours to share
+                return chatCompletionEntity(chatRequest);
+            }
+            catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        try {
+            ResponseEntity<ChatCompletion> response = exchangeChatCompletion(chatRequest);
+            call.complete(response);
+            return response;
+        }
+        catch (RuntimeException ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            this.inFlightCompletions.remove(key, call);
+        }
+    }
+
+    /**
+     * Creates a model response for the given chat conversation without blocking, through
+     * the {@code WebClient}. Shares coalescing with {@link #chatCompletionEntity}.
+     *
+     * @param chatRequest The chat completion request.
+     * @return {@link Mono} of the entity response with
+     * {@link SkyworkAiTiangongApi.ChatCompletion} as a body.
+     */
+    public Mono<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> chatCompletionEntityAsync(SkyworkAiTiangongApi.ChatCompletionRequest chatRequest) {
+
+        Assert.notNull(chatRequest, "The request body can not be null.");
+        Assert.isTrue(!chatRequest.stream(), "Request must set the steam property to false.");
+
+        if (!this.requestCoalescing) {
+            return exchangeChatCompletionAsync(chatRequest);
+        }
+
+        return Mono.defer(() -> {
+            String key = canonicalKey(chatRequest);
+            CompletableFuture<ResponseEntity<ChatCompletion>> call = new CompletableFuture<>();
+            CompletableFuture<ResponseEntity<ChatCompletion>> inFlight = this.inFlightCompletions.putIfAbsent(key, call);
+            if (inFlight != null) {
+                // the leader was cancelled, its outcome is not ours to share
+                return Mono.fromFuture(inFlight, true)
+                        .onErrorResume(CancellationException.class, ex -> chatCompletionEntityAsync(chatRequest));
+            }
+            return exchangeChatCompletionAsync(chatRequest)
+                    .doOnSuccess(call::complete)
+                    .doOnError(call::completeExceptionally)
+                    .doOnCancel(() -> {
+                        // followers falling back must not join the cancelled call again
+                        this.inFlightCompletions.remove(key, call);
+                        call.cancel(false);
+                    })
+                    .doFinally(signal -> this.inFlightCompletions.remove(key, call));
+        });
+    }
+
+    /**
+     * Send one validated, non-coalesced chat completion request.
+     * @param chatRequest The chat completion request.
+     * @return Entity response with {@link SkyworkAiTiangongApi.ChatCompletion} as a body.
+     */
+    protected ResponseEntity<ChatCompletion> exchangeChatCompletion(ChatCompletionRequest chatRequest) {
+
+        // Fail fast while the circuit is open, before waiting for any limiter
+        SkyworkAiTiangongCircuitBreaker circuitBreaker = this.circuitBreaker;
+        SkyworkAiTiangongCircuitBreaker.Permit breakerPermit = (circuitBreaker != null ? circuitBreaker.acquire() : null);
+
+        SkyworkAiTiangongRateLimiter rateLimiter = this.rateLimiter;
+        int estimatedTokens = 0;
+        SkyworkAiTiangongConcurrencyLimiter.Permit permit;
+        try {
+            if (rateLimiter != null) {
+                estimatedTokens = rateLimiter.estimateTokens(chatRequest);
+                rateLimiter.acquire(estimatedTokens);
+            }
+            SkyworkAiTiangongConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiter;
+            permit = (concurrencyLimiter != null ? concurrencyLimiter.acquire() : null);
+        }
+        catch (RuntimeException ex) {
+            if (breakerPermit != null) {
+                breakerPermit.onIgnore();
+            }
+            throw ex;
+        }
+
+        SkyworkAiTiangongClientMetrics metrics = this.metrics;
+        Observation observation = exchangeObservation(chatRequest).start();
+        long start = System.nanoTime();
+        ResponseEntity<ChatCompletion> response;
+        try (Observation.Scope scope = observation.openScope()) {
+            response = this.restClient.post()
+                    .uri("/api/paas/v4/chat/completions")
+                    .body(chatRequest)
+                    .retrieve()
+                    .toEntity(SkyworkAiTiangongApi.ChatCompletion.class);
+        }
+        catch (RuntimeException ex) {
+            observation.error(ex);
+            metrics.onExchange(CHAT_COMPLETIONS_ENDPOINT, chatRequest.model(), false, System.nanoTime() - start, ex);
+            if (permit != null) {
+                if (isOverloadError(ex)) {
+                    permit.onDropped();
+                }
+                else {
+                    permit.onIgnore();
+                }
+            }
+            if (breakerPermit != null) {
+                breakerPermit.onError(ex);
+            }
+            throw ex;
+        }
+        finally {
+            observation.stop();
+        }
+        long latency = System.nanoTime() - start;
+        recordCompletion(metrics, chatRequest.model(), response.getBody(), latency);
+        if (permit != null) {
+            permit.onSuccess(latency);
+        }
+        if (breakerPermit != null) {
+            breakerPermit.onSuccess(latency);
+        }
+
+        if (rateLimiter != null && response.getBody() != null) {
+            rateLimiter.reconcile(estimatedTokens, response.getBody().usage());
+        }
+        return response;
     }
 
     private SkyworkAiTiangongStreamFunctionCallingHelper chunkMerger = new SkyworkAiTiangongStreamFunctionCallingHelper();
 
+    private final SkyworkAiTiangongStreamChunkDecoder chunkDecoder = new SkyworkAiTiangongStreamChunkDecoder();
+
     /**
      * Creates a streaming chat response for the given chat conversation.
      *
@@ -520,35 +841,431 @@ public class SkyworkAiTiangongApi {
         Assert.notNull(chatRequest, "The request body can not be null.");
         Assert.isTrue(chatRequest.stream(), "Request must set the steam property to true.");
 
-        AtomicBoolean isInsideTool = new AtomicBoolean(false);
+        if (!this.streamCoalescing) {
+            return exchangeChatCompletionStream(chatRequest);
+        }
 
-        return this.webClient.post()
-                .uri("/api/paas/v4/chat/completions")
-                .body(Mono.just(chatRequest), ChatCompletionRequest.class)
-                .retrieve()
-                .bodyToFlux(String.class)
-                .takeUntil(SSE_DONE_PREDICATE)
-                .filter(SSE_DONE_PREDICATE.negate())
-                .map(content -> ModelOptionsUtils.jsonToObject(content, ChatCompletionChunk.class))
-                .map(chunk -> {
-                    if (this.chunkMerger.isStreamingToolFunctionCall(chunk)) {
-                        isInsideTool.set(true);
+        // Concurrent subscribers with the same canonical request share one exchange, late
+        // subscribers get the chunks emitted so far replayed. Once the join limit is
+        // reached the stream leaves the map; the replay history is twice the join limit,
+        // so that a subscriber that looked the stream up just before still gets every
+        // chunk, and memory stays bounded however long the stream runs.
+        return Flux.defer(() -> {
+            String key = canonicalKey(chatRequest);
+            Flux<ChatCompletionChunk> inFlight = this.inFlightStreams.get(key);
+            if (inFlight != null) {
+                return inFlight;
+            }
+            int joinLimit = this.streamJoinLimit;
+            AtomicInteger emitted = new AtomicInteger();
+            AtomicReference<Flux<ChatCompletionChunk>> self = new AtomicReference<>();
+            Flux<ChatCompletionChunk> shared = exchangeChatCompletionStream(chatRequest)
+                    .doOnNext(chunk -> {
+                        if (emitted.incrementAndGet() == joinLimit) {
+                            this.inFlightStreams.remove(key, self.get());
+                        }
+                    })
+                    .doFinally(signal -> this.inFlightStreams.remove(key, self.get()))
+                    .replay(2 * joinLimit)
+                    .refCount();
+            self.set(shared);
+            inFlight = this.inFlightStreams.putIfAbsent(key, shared);
+            return (inFlight != null ? inFlight : shared);
+        });
+    }
+
+    /**
+     * Open one validated, non-coalesced chat completion stream.
+     * @param chatRequest The chat completion request.
+     * @return the chunks of the stream.
+     */
+    protected Flux<ChatCompletionChunk> exchangeChatCompletionStream(ChatCompletionRequest chatRequest) {
+        return guardedExchange(chatRequest, ChatCompletionChunk::usage, () -> observeExchange(chatRequest,
+                observation -> instrumentStream(chatRequest.model(), streamChatCompletion(chatRequest, observation))));
+    }
+
+    /**
+     * Send one validated, non-coalesced chat completion request without blocking.
+     * @param chatRequest The chat completion request.
+     * @return Entity response with {@link SkyworkAiTiangongApi.ChatCompletion} as a body.
+     */
+    protected Mono<ResponseEntity<ChatCompletion>> exchangeChatCompletionAsync(ChatCompletionRequest chatRequest) {
+        return guardedExchange(chatRequest, SkyworkAiTiangongApi::usageOf, () -> observeExchange(chatRequest,
+                observation -> instrumentExchange(chatRequest.model(), this.webClient.post()
+                    .uri("/api/paas/v4/chat/completions")
+                    .body(Mono.just(chatRequest), ChatCompletionRequest.class)
+                    .retrieve()
+                    .toEntity(ChatCompletion.class))
+                    .flux()))
+            // wait for completion, next() would cancel and skip the success hooks
+            .singleOrEmpty();
+    }
+
+    /**
+     * Observation of one exchange, a child of the observation current on the calling
+     * thread.
+     */
+    private Observation exchangeObservation(ChatCompletionRequest chatRequest) {
+        return Observation.createNotStarted(EXCHANGE_OBSERVATION, this.observationRegistry)
+                .contextualName("chat completions")
+                .lowCardinalityKeyValue("model", String.valueOf(chatRequest.model()))
+                .lowCardinalityKeyValue("stream", String.valueOf(chatRequest.stream()));
+    }
+
+    /**
+     * Observes a reactive exchange from subscription to termination.
+     */
+    private <T> Flux<T> observeExchange(ChatCompletionRequest chatRequest, Function<Observation, Flux<T>> exchange) {
+        if (this.observationRegistry.isNoop()) {
+            return exchange.apply(Observation.NOOP);
+        }
+        return Flux.defer(() -> {
+            Observation observation = exchangeObservation(chatRequest).start();
+            return exchange.apply(observation)
+                    .doOnError(observation::error)
+                    .doFinally(signal -> observation.stop());
+        });
+    }
+
+    /**
+     * Canonical key of a chat completion request: a SHA-256 digest of its JSON form
+     * without the request id and user id, which do not influence the generation.
+     * @param request the chat completion request.
+     * @return the hex encoded digest.
+     */
+    public static String canonicalKey(ChatCompletionRequest request) {
+        var canonical = new ChatCompletionRequest(null, request.model(), request.messages(),
+                request.doSample(), request.stream(), request.temperature(), request.topP(), request.maxTokens(),
+                request.stop(), request.tools(), request.toolChoice(), null);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(ModelOptionsUtils.toJsonString(canonical).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Whether a failed exchange signals an overloaded or unreachable server: 429, 5xx,
+     * I/O errors, timeouts and open circuits. Other client errors say nothing about
+     * server capacity.
+     * @param throwable the failure of the exchange.
+     * @return true if the failure is an overload signal.
+     */
+    static boolean isOverloadError(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        if (throwable instanceof SkyworkAiTiangongCircuitOpenException) {
+            return true;
+        }
+        if (throwable instanceof NonTransientAiException) {
+            // the default response error handler reports the status code first
+            return String.valueOf(throwable.getMessage()).startsWith("429");
+        }
+        return throwable instanceof TransientAiException || throwable instanceof ResourceAccessException
+                || throwable instanceof WebClientRequestException || throwable instanceof IOException
+                || throwable instanceof TimeoutException;
+    }
+
+    private static Usage usageOf(ResponseEntity<ChatCompletion> response) {
+        return (response.getBody() != null ? response.getBody().usage() : null);
+    }
+
+    private void recordCompletion(SkyworkAiTiangongClientMetrics metrics, String model, ChatCompletion completion,
+            long latencyNanos) {
+        metrics.onExchange(CHAT_COMPLETIONS_ENDPOINT, model, false, latencyNanos, null);
+        if (completion == null) {
+            return;
+        }
+        if (completion.usage() != null) {
+            metrics.onUsage(model, completion.usage(), latencyNanos);
+        }
+        if (completion.choices() != null) {
+            for (ChatCompletion.Choice choice : completion.choices()) {
+                if (choice.finishReason() != null) {
+                    metrics.onFinishReason(model, choice.finishReason());
+                }
+            }
+        }
+    }
+
+    private Mono<ResponseEntity<ChatCompletion>> instrumentExchange(String model,
+            Mono<ResponseEntity<ChatCompletion>> exchange) {
+
+        SkyworkAiTiangongClientMetrics metrics = this.metrics;
+        if (metrics == SkyworkAiTiangongClientMetrics.NOOP) {
+            return exchange;
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return exchange
+                    .doOnNext(response -> recordCompletion(metrics, model, response.getBody(), System.nanoTime() - start))
+                    .doOnError(ex -> metrics.onExchange(CHAT_COMPLETIONS_ENDPOINT, model, false,
+                            System.nanoTime() - start, ex));
+        });
+    }
+
+    private Flux<ChatCompletionChunk> instrumentStream(String model, Flux<ChatCompletionChunk> chunks) {
+
+        SkyworkAiTiangongClientMetrics metrics = this.metrics;
+        if (metrics == SkyworkAiTiangongClientMetrics.NOOP) {
+            return chunks;
+        }
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong previousChunk = new AtomicLong(start);
+            AtomicBoolean first = new AtomicBoolean(true);
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            return chunks
+                    .doOnNext(chunk -> {
+                        long now = System.nanoTime();
+                        long previous = previousChunk.getAndSet(now);
+                        if (first.compareAndSet(true, false)) {
+                            metrics.onFirstChunk(model, now - start);
+                        }
+                        else {
+                            metrics.onChunkGap(model, now - previous);
+                        }
+                        if (chunk.choices() != null) {
+                            for (ChatCompletionChunk.ChunkChoice choice : chunk.choices()) {
+                                if (choice.finishReason() != null) {
+                                    metrics.onFinishReason(model, choice.finishReason());
+                                }
+                            }
+                        }
+                        if (chunk.usage() != null) {
+                            usage.set(chunk.usage());
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        long latency = System.nanoTime() - start;
+                        metrics.onExchange(CHAT_COMPLETIONS_ENDPOINT, model, true, latency, null);
+                        if (usage.get() != null) {
+                            metrics.onUsage(model, usage.get(), latency);
+                        }
+                    })
+                    .doOnError(ex -> metrics.onExchange(CHAT_COMPLETIONS_ENDPOINT, model, true,
+                            System.nanoTime() - start, ex))
+                    // a consumer that stops reading early, or a timeout upstream of it
+                    .doOnCancel(() -> metrics.onExchange(CHAT_COMPLETIONS_ENDPOINT, model, true,
+                            System.nanoTime() - start, new CancellationException("Stream cancelled")));
+        });
+    }
+
+    /**
+     * Runs a reactive exchange through the circuit breaker, the rate limiter and the
+     * concurrency limiter, the non-blocking counterpart of {@link #exchangeChatCompletion}.
+     */
+    private <T> Flux<T> guardedExchange(ChatCompletionRequest chatRequest, Function<? super T, Usage> usage,
+            Supplier<Flux<T>> exchange) {
+
+        SkyworkAiTiangongCircuitBreaker circuitBreaker = this.circuitBreaker;
+        if (circuitBreaker == null) {
+            return throttledExchange(chatRequest, usage, null, exchange);
+        }
+        // Fail fast while the circuit is open, before waiting for any limiter. The permit
+        // is ignored if the exchange ends before it recorded an outcome.
+        return Flux.defer(() -> {
+            SkyworkAiTiangongCircuitBreaker.Permit breakerPermit = circuitBreaker.acquire();
+            return throttledExchange(chatRequest, usage, breakerPermit, exchange)
+                    .doFinally(signal -> breakerPermit.onIgnore());
+        });
+    }
+
+    private <T> Flux<T> throttledExchange(ChatCompletionRequest chatRequest, Function<? super T, Usage> usage,
+            SkyworkAiTiangongCircuitBreaker.Permit breakerPermit, Supplier<Flux<T>> exchange) {
+
+        SkyworkAiTiangongRateLimiter rateLimiter = this.rateLimiter;
+        if (rateLimiter == null) {
+            return limitedExchange(breakerPermit, exchange);
+        }
+        // Wait for the rate limiter without blocking the subscribing thread, and reconcile
+        // the estimate with the last usage reported once the exchange terminates
+        return Flux.defer(() -> {
+            int estimatedTokens = rateLimiter.estimateTokens(chatRequest);
+            long waitNanos = rateLimiter.reserve(estimatedTokens);
+            if (waitNanos <= 0) {
+                return reconciledExchange(rateLimiter, estimatedTokens, usage, breakerPermit, exchange);
+            }
+            // a request cancelled while waiting never reaches the server, refund it
+            AtomicBoolean sent = new AtomicBoolean();
+            return Mono.delay(Duration.ofNanos(waitNanos))
+                    .thenMany(Flux.defer(() -> {
+                        sent.set(true);
+                        return reconciledExchange(rateLimiter, estimatedTokens, usage, breakerPermit, exchange);
+                    }))
+                    .doFinally(signal -> {
+                        if (!sent.get()) {
+                            rateLimiter.release(estimatedTokens);
+                        }
+                    });
+        });
+    }
+
+    private <T> Flux<T> reconciledExchange(SkyworkAiTiangongRateLimiter rateLimiter, int estimatedTokens,
+            Function<? super T, Usage> usage, SkyworkAiTiangongCircuitBreaker.Permit breakerPermit,
+            Supplier<Flux<T>> exchange) {
+
+        AtomicReference<Usage> lastUsage = new AtomicReference<>();
+        return limitedExchange(breakerPermit, exchange)
+                .doOnNext(element -> {
+                    Usage elementUsage = usage.apply(element);
+                    if (elementUsage != null) {
+                        lastUsage.set(elementUsage);
                     }
-                    return chunk;
                 })
-                .windowUntil(chunk -> {
-                    if (isInsideTool.get() && this.chunkMerger.isStreamingToolFunctionCallFinish(chunk)) {
-                        isInsideTool.set(false);
-                        return true;
+                .doFinally(signal -> {
+                    Usage reported = lastUsage.get();
+                    if (reported != null) {
+                        rateLimiter.reconcile(estimatedTokens, reported);
                     }
-                    return !isInsideTool.get();
-                })
-                .concatMapIterable(window -> {
-                    Mono<ChatCompletionChunk> mono1 = window.reduce(new ChatCompletionChunk(null, null, null, null, null,null),
-                            (previous, current) -> this.chunkMerger.merge(previous, current));
-                    return List.of(mono1);
-                })
-                .flatMap(mono -> mono);
+                });
+    }
+
+    private <T> Flux<T> limitedExchange(SkyworkAiTiangongCircuitBreaker.Permit breakerPermit,
+            Supplier<Flux<T>> exchange) {
+
+        SkyworkAiTiangongConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiter;
+        if (concurrencyLimiter == null && breakerPermit == null) {
+            return Flux.defer(exchange);
+        }
+        // An exchange holds its slot until it terminates, latency is the time to the
+        // first element
+        return Flux.defer(() -> {
+            SkyworkAiTiangongConcurrencyLimiter.Permit permit = (concurrencyLimiter != null ? concurrencyLimiter.acquire() : null);
+            long start = System.nanoTime();
+            AtomicLong firstElementLatency = new AtomicLong(-1);
+            return exchange.get()
+                    .doOnNext(element -> firstElementLatency.compareAndSet(-1, System.nanoTime() - start))
+                    .doOnComplete(() -> {
+                        long latency = Math.max(0, firstElementLatency.get());
+                        if (permit != null) {
+                            permit.onSuccess(latency);
+                        }
+                        if (breakerPermit != null) {
+                            breakerPermit.onSuccess(latency);
+                        }
+                    })
+                    .doOnError(ex -> {
+                        if (permit != null) {
+                            if (isOverloadError(ex)) {
+                                permit.onDropped();
+                            }
+                            else {
+                                permit.onIgnore();
+                            }
+                        }
+                        if (breakerPermit != null) {
+                            breakerPermit.onError(ex);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (permit != null) {
+                            permit.onIgnore();
+                        }
+                    });
+        });
+    }
+
+    private Flux<ChatCompletionChunk> streamChatCompletion(ChatCompletionRequest chatRequest, Observation exchangeObservation) {
+
+        Flux<ChatCompletionChunk> chunks = this.webClient.post()
+                .uri("/api/paas/v4/chat/completions")
+                .body(Mono.just(chatRequest), ChatCompletionRequest.class)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .transform(this.chunkDecoder::decode);
+        return mergeToolCalls(chunks, exchangeObservation);
+    }
+
+    /**
+     * Passes text chunks straight through and merges the chunks of each tool call, from
+     * the first chunk with tool calls to the one finishing with {@code tool_calls}, into
+     * one chunk. A tool call still open when the stream completes is emitted as is.
+     */
+    private Flux<ChatCompletionChunk> mergeToolCalls(Flux<ChatCompletionChunk> chunks, Observation exchangeObservation) {
+        return Flux.defer(() -> {
+            ToolCallWindow window = new ToolCallWindow(exchangeObservation);
+            Flux<ChatCompletionChunk> merged = chunks.handle((chunk, sink) -> {
+                if (!window.isOpen() && !this.chunkMerger.isStreamingToolFunctionCall(chunk)) {
+                    sink.next(chunk);
+                    return;
+                }
+                window.add(chunk);
+                if (this.chunkMerger.isStreamingToolFunctionCallFinish(chunk)) {
+                    sink.next(window.close());
+                }
+            });
+            return merged.concatWith(Mono.fromSupplier(window::close))
+                    .doOnError(window::error)
+                    .doFinally(signal -> window.discard());
+        });
+    }
+
+    /**
+     * Chunks of the tool call being streamed, merged in place, and its observation.
+     * Driven sequentially by the operators of one stream.
+     */
+    private final class ToolCallWindow {
+
+        private final Observation exchangeObservation;
+
+        private SkyworkAiTiangongStreamFunctionCallingHelper.ChunkAccumulator accumulator;
+
+        private Observation observation;
+
+        private ToolCallWindow(Observation exchangeObservation) {
+            this.exchangeObservation = exchangeObservation;
+        }
+
+        private boolean isOpen() {
+            return this.accumulator != null;
+        }
+
+        private void add(ChatCompletionChunk chunk) {
+            if (this.accumulator == null) {
+                this.accumulator = chunkMerger.accumulator();
+                if (!observationRegistry.isNoop()) {
+                    // opened when the first chunk of the tool call arrives, closed once merged
+                    this.observation = Observation.createNotStarted(STREAM_WINDOW_OBSERVATION, observationRegistry)
+                            .contextualName("stream window")
+                            .parentObservation(this.exchangeObservation)
+                            .start();
+                }
+            }
+            this.accumulator.add(chunk);
+        }
+
+        /**
+         * @return the merged tool call, {@code null} if none is open.
+         */
+        private ChatCompletionChunk close() {
+            if (this.accumulator == null) {
+                return null;
+            }
+            ChatCompletionChunk merged = this.accumulator.toChunk();
+            this.accumulator = null;
+            discard();
+            return merged;
+        }
+
+        private void error(Throwable throwable) {
+            if (this.observation != null) {
+                this.observation.error(throwable);
+            }
+        }
+
+        private void discard() {
+            if (this.observation != null) {
+                this.observation.stop();
+                this.observation = null;
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,165 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-process cache of chat completions, keyed by the
+ * {@link SkyworkAiTiangongApi#canonicalKey canonical key} of the final request. Entries expire after
+ * a fixed time to live and the least recently used entry is evicted once the cache is
+ * full.
+ * <p>
+ * Only deterministic requests are cached by default: {@code do_sample} set to false (the
+ * server then ignores temperature and top_p) or a temperature of zero. Requests with
+ * sampling enabled are cached only when {@code cacheSampled} is set. Only final answers
+ * are stored: every choice stopped naturally and calls no tools. Truncated, filtered or
+ * failed completions are not worth replaying.
+ */
+public class SkyworkAiTiangongChatCompletionCache {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final boolean cacheSampled;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public SkyworkAiTiangongChatCompletionCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, false);
+    }
+
+    public SkyworkAiTiangongChatCompletionCache(int maxSize, Duration ttl, boolean cacheSampled) {
+        Assert.isTrue(maxSize > 0, "Max size must be positive");
+        Assert.notNull(ttl, "TTL must not be null");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.cacheSampled = cacheSampled;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > SkyworkAiTiangongChatCompletionCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param request the final chat completion request.
+     * @return the cache key of the request, or {@code null} if it must not be cached.
+     */
+    public String keyOf(SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        if (!this.cacheSampled && !isDeterministic(request)) {
+            return null;
+        }
+        return SkyworkAiTiangongApi.canonicalKey(request);
+    }
+
+    private static boolean isDeterministic(SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        // do_sample defaults to true on the server side
+        return Boolean.FALSE.equals(request.doSample())
+                || (request.temperature() != null && request.temperature() <= 0f);
+    }
+
+    /**
+     * @param key the cache key.
+     * @return the cached completion, or {@code null} if absent or expired.
+     */
+    public synchronized SkyworkAiTiangongApi.ChatCompletion get(String key) {
+        Entry entry = this.entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+            this.entries.remove(key);
+            this.evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return entry.completion;
+    }
+
+    /**
+     * Cache a completion, unless it is not {@link #isCacheable cacheable}.
+     * @param key the cache key.
+     * @param completion the completion of the request.
+     */
+    public synchronized void put(String key, SkyworkAiTiangongApi.ChatCompletion completion) {
+        Assert.notNull(completion, "Completion must not be null");
+        if (!isCacheable(completion)) {
+            return;
+        }
+        this.entries.put(key, new Entry(completion, System.nanoTime() + this.ttlNanos));
+    }
+
+    /**
+     * @param completion the completion.
+     * @return true if every choice of the completion stopped naturally without calling
+     * tools.
+     */
+    public static boolean isCacheable(SkyworkAiTiangongApi.ChatCompletion completion) {
+        if (completion.choices() == null || completion.choices().isEmpty()) {
+            return false;
+        }
+        for (SkyworkAiTiangongApi.ChatCompletion.Choice choice : completion.choices()) {
+            if (choice.finishReason() != SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP
+                    || choice.message() == null
+                    || (choice.message().toolCalls() != null && !choice.message().toolCalls().isEmpty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the expired entries, counting them as evictions.
+     */
+    public synchronized void cleanUp() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> it = this.entries.values().iterator(); it.hasNext();) {
+            if (it.next().expiresAt - now <= 0) {
+                it.remove();
+                this.evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    private record Entry(SkyworkAiTiangongApi.ChatCompletion completion, long expiresAt) {
+    }
+
+}
@@ -10,7 +10,10 @@ import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.model.function.FunctionCallback;
 import org.springframework.ai.model.function.FunctionCallingOptions;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -73,24 +76,38 @@ public class SkyworkAiTiangongChatOptions implements FunctionCallingOptions, Cha
     @NestedConfigurationProperty
     private @JsonProperty("tool_choice") SkyworkAiTiangongApi.ChatCompletionRequest.ToolChoice toolChoice;
 
+    /**
+     * 注册到当前请求的函数回调，不会序列化到请求中
+     */
+    @NestedConfigurationProperty
+    @JsonIgnore
+    private List<FunctionCallback> functionCallbacks = new ArrayList<>();
+
+    /**
+     * 按名称启用的函数，对应的回调需已注册，不会序列化到请求中
+     */
+    @NestedConfigurationProperty
+    @JsonIgnore
+    private Set<String> functions = new HashSet<>();
+
     @Override
     public List<FunctionCallback> getFunctionCallbacks() {
-        return null;
+        return this.functionCallbacks;
     }
 
     @Override
     public void setFunctionCallbacks(List<FunctionCallback> functionCallbacks) {
-
+        this.functionCallbacks = functionCallbacks;
     }
 
     @Override
     public Set<String> getFunctions() {
-        return null;
+        return this.functions;
     }
 
     @Override
     public void setFunctions(Set<String> functions) {
-
+        this.functions = functions;
     }
 
     public static Builder builder() {
@@ -146,6 +163,23 @@ public class SkyworkAiTiangongChatOptions implements FunctionCallingOptions, Cha
             return this;
         }
 
+        public Builder withFunctionCallbacks(List<FunctionCallback> functionCallbacks) {
+            this.options.functionCallbacks = functionCallbacks;
+            return this;
+        }
+
+        public Builder withFunctions(Set<String> functionNames) {
+            Assert.notNull(functionNames, "Function names must not be null");
+            this.options.functions = functionNames;
+            return this;
+        }
+
+        public Builder withFunction(String functionName) {
+            Assert.hasText(functionName, "Function name must not be empty");
+            this.options.functions.add(functionName);
+            return this;
+        }
+
         public SkyworkAiTiangongChatOptions build() {
             return this.options;
         }
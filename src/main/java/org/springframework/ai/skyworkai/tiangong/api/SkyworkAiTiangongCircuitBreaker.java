@@ -0,0 +1,254 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker of one Skywork AI Tiangong endpoint.
+ * <p>
+ * While {@link State#CLOSED closed} the outcomes of the last {@code slidingWindowSize}
+ * calls are recorded. Once at least {@code minimumNumberOfCalls} are, and the share of
+ * failed calls (429, 5xx, I/O error or timeout) or of calls slower than
+ * {@code slowCallDuration} reaches its threshold, the breaker opens. While
+ * {@link State#OPEN open} every call fails fast with a
+ * {@link SkyworkAiTiangongCircuitOpenException}. After {@code waitDurationInOpenState}
+ * it turns {@link State#HALF_OPEN half-open} and lets
+ * {@code permittedCallsInHalfOpenState} probe calls through, which close it again or
+ * reopen it by the same thresholds. Client errors count neither way.
+ */
+public class SkyworkAiTiangongCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkyworkAiTiangongCircuitBreaker.class);
+
+    private static final byte SUCCESS = 0;
+
+    private static final byte FAILURE = 1;
+
+    private static final byte SLOW = 2;
+
+    /**
+     * State of the breaker.
+     */
+    public enum State {
+
+        CLOSED, OPEN, HALF_OPEN
+
+    }
+
+    private final String name;
+
+    private final double failureRateThreshold;
+
+    private final double slowCallRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final int minimumNumberOfCalls;
+
+    private final long waitNanos;
+
+    private final int permittedCallsInHalfOpenState;
+
+    private final byte[] window;
+
+    private final LongAdder rejections = new LongAdder();
+
+    private State state = State.CLOSED;
+
+    /**
+     * Incremented on every transition, outcomes of permits of an earlier state are
+     * dropped.
+     */
+    private long generation;
+
+    private long openedAt;
+
+    private int nextIndex;
+
+    private int recorded;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private int halfOpenPermits;
+
+    public SkyworkAiTiangongCircuitBreaker(String name, double failureRateThreshold, double slowCallRateThreshold,
+                                           Duration slowCallDuration, int slidingWindowSize, int minimumNumberOfCalls,
+                                           Duration waitDurationInOpenState, int permittedCallsInHalfOpenState) {
+        Assert.hasText(name, "Name must not be empty");
+        Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 1,
+                "Failure rate threshold must be between 0 and 1");
+        Assert.isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1,
+                "Slow call rate threshold must be between 0 and 1");
+        Assert.notNull(slowCallDuration, "Slow call duration must not be null");
+        Assert.isTrue(slidingWindowSize > 0, "Sliding window size must be positive");
+        Assert.isTrue(minimumNumberOfCalls > 0 && minimumNumberOfCalls <= slidingWindowSize,
+                "Minimum number of calls must be between 1 and the sliding window size");
+        Assert.notNull(waitDurationInOpenState, "Wait duration in open state must not be null");
+        Assert.isTrue(permittedCallsInHalfOpenState > 0, "Permitted calls in half-open state must be positive");
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+        this.waitNanos = waitDurationInOpenState.toNanos();
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        this.window = new byte[slidingWindowSize];
+    }
+
+    /**
+     * Acquire the permission for one call.
+     * @return the permit to complete once the call finished.
+     * @throws SkyworkAiTiangongCircuitOpenException if the breaker is open, or half-open
+     * with all probe calls in flight.
+     */
+    public synchronized Permit acquire() {
+        if (this.state == State.OPEN) {
+            if (System.nanoTime() - this.openedAt < this.waitNanos) {
+                reject();
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.halfOpenPermits >= this.permittedCallsInHalfOpenState) {
+                reject();
+            }
+            this.halfOpenPermits++;
+        }
+        return new Permit(this.generation);
+    }
+
+    private void reject() {
+        this.rejections.increment();
+        throw new SkyworkAiTiangongCircuitOpenException("Circuit breaker '" + this.name + "' is " + this.state);
+    }
+
+    private synchronized void onResult(long permitGeneration, byte outcome) {
+        if (permitGeneration != this.generation) {
+            return;
+        }
+        record(outcome);
+        int calls = (this.state == State.HALF_OPEN ? this.permittedCallsInHalfOpenState : this.minimumNumberOfCalls);
+        if (this.recorded < calls) {
+            return;
+        }
+        boolean tripped = this.failures >= this.failureRateThreshold * this.recorded
+                || this.slowCalls >= this.slowCallRateThreshold * this.recorded;
+        if (tripped) {
+            transitionTo(State.OPEN);
+        }
+        else if (this.state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    private synchronized void onIgnore(long permitGeneration) {
+        if (permitGeneration == this.generation && this.state == State.HALF_OPEN) {
+            // give the probe slot to another call
+            this.halfOpenPermits--;
+        }
+    }
+
+    private void record(byte outcome) {
+        if (this.recorded == this.window.length) {
+            byte evicted = this.window[this.nextIndex];
+            if (evicted == FAILURE) {
+                this.failures--;
+            }
+            else if (evicted == SLOW) {
+                this.slowCalls--;
+            }
+        }
+        else {
+            this.recorded++;
+        }
+        this.window[this.nextIndex] = outcome;
+        this.nextIndex = (this.nextIndex + 1) % this.window.length;
+        if (outcome == FAILURE) {
+            this.failures++;
+        }
+        else if (outcome == SLOW) {
+            this.slowCalls++;
+        }
+    }
+
+    private void transitionTo(State newState) {
+        logger.info("Circuit breaker '{}' changed from {} to {}", this.name, this.state, newState);
+        this.state = newState;
+        this.generation++;
+        this.nextIndex = 0;
+        this.recorded = 0;
+        this.failures = 0;
+        this.slowCalls = 0;
+        this.halfOpenPermits = 0;
+        if (newState == State.OPEN) {
+            this.openedAt = System.nanoTime();
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    public long getRejectionCount() {
+        return this.rejections.sum();
+    }
+
+    /**
+     * One permitted call. Exactly the first completion call counts.
+     */
+    public class Permit {
+
+        private final long generation;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * The call succeeded.
+         * @param latencyNanos the latency of the call, time to first chunk for streams.
+         */
+        public void onSuccess(long latencyNanos) {
+            if (this.released.compareAndSet(false, true)) {
+                onResult(this.generation, latencyNanos >= slowCallNanos ? SLOW : SUCCESS);
+            }
+        }
+
+        /**
+         * The call failed, only overload signals count as failures.
+         * @param throwable the failure of the call.
+         */
+        public void onError(Throwable throwable) {
+            if (!SkyworkAiTiangongApi.isOverloadError(throwable)) {
+                onIgnore();
+            }
+            else if (this.released.compareAndSet(false, true)) {
+                onResult(this.generation, FAILURE);
+            }
+        }
+
+        /**
+         * The call ended without an outcome, e.g. cancelled or rejected by a limiter.
+         */
+        public void onIgnore() {
+            if (this.released.compareAndSet(false, true)) {
+                SkyworkAiTiangongCircuitBreaker.this.onIgnore(this.generation);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.ai.retry.NonTransientAiException;
+
+/**
+ * Thrown when a {@link SkyworkAiTiangongCircuitBreaker} rejects a call because the
+ * endpoint is failing. Non-transient so that the retry template fails fast as well.
+ */
+public class SkyworkAiTiangongCircuitOpenException extends NonTransientAiException {
+
+    public SkyworkAiTiangongCircuitOpenException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+/**
+ * Listener of the measurements taken by the Skywork AI Tiangong apis and chat client.
+ * Free of any metrics library, so that the apis do not depend on one;
+ * {@link SkyworkAiTiangongMicrometerClientMetrics} records them with Micrometer.
+ * <p>
+ * Called on the request and event loop threads, implementations must be cheap and
+ * thread-safe.
+ */
+public interface SkyworkAiTiangongClientMetrics {
+
+    /**
+     * Listener discarding every measurement.
+     */
+    SkyworkAiTiangongClientMetrics NOOP = new SkyworkAiTiangongClientMetrics() {
+    };
+
+    /**
+     * An HTTP exchange ended.
+     * @param endpoint the endpoint, e.g. {@code chat.completions}.
+     * @param model the requested model, may be {@code null}.
+     * @param stream whether the response was streamed.
+     * @param latencyNanos the time until the response, or the last chunk, was received.
+     * @param error the failure of the exchange, {@code null} on success, a
+     * {@link java.util.concurrent.CancellationException} if the consumer cancelled it.
+     */
+    default void onExchange(String endpoint, String model, boolean stream, long latencyNanos, Throwable error) {
+    }
+
+    /**
+     * The first chunk of a stream was received.
+     * @param model the requested model.
+     * @param latencyNanos the time from the request to the first chunk.
+     */
+    default void onFirstChunk(String model, long latencyNanos) {
+    }
+
+    /**
+     * A chunk of a stream was received after another one.
+     * @param model the requested model.
+     * @param gapNanos the time since the previous chunk.
+     */
+    default void onChunkGap(String model, long gapNanos) {
+    }
+
+    /**
+     * The token usage of a completion was reported.
+     * @param model the requested model.
+     * @param usage the usage.
+     * @param latencyNanos the latency of the exchange, to derive the throughput.
+     */
+    default void onUsage(String model, SkyworkAiTiangongApi.Usage usage, long latencyNanos) {
+    }
+
+    /**
+     * A choice of a completion finished.
+     * @param model the requested model.
+     * @param finishReason the reason the generation stopped.
+     */
+    default void onFinishReason(String model, SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason) {
+    }
+
+    /**
+     * The model called functions and their results are sent back.
+     * @param model the requested model.
+     * @param toolCalls the number of functions called in this round.
+     */
+    default void onToolRound(String model, int toolCalls) {
+    }
+
+}
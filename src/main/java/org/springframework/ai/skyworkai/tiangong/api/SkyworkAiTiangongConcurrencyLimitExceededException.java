@@ -0,0 +1,15 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.ai.retry.NonTransientAiException;
+
+/**
+ * Thrown when the adaptive concurrency limiter rejects a request because the current
+ * limit of requests in flight is reached.
+ */
+public class SkyworkAiTiangongConcurrencyLimitExceededException extends NonTransientAiException {
+
+    public SkyworkAiTiangongConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive limit of the requests in flight to the Skywork AI Tiangong API, using additive
+ * increase / multiplicative decrease (AIMD).
+ * <p>
+ * Every successful request grows the limit by {@code 1 / limit}, i.e. by one per full
+ * window of successes, while the limit is actually used. A request failing with an
+ * overload signal (429, 5xx, I/O error or timeout) or slower than the latency threshold
+ * shrinks it by the backoff ratio. Requests beyond the current limit are rejected with a
+ * {@link SkyworkAiTiangongConcurrencyLimitExceededException}.
+ */
+public class SkyworkAiTiangongConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private volatile double limit;
+
+    public SkyworkAiTiangongConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            Duration latencyThreshold) {
+        Assert.isTrue(minLimit > 0, "Min limit must be positive");
+        Assert.isTrue(maxLimit >= minLimit, "Max limit must not be lower than min limit");
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "Backoff ratio must be between 0 and 1");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = (latencyThreshold != null ? latencyThreshold.toNanos() : Long.MAX_VALUE);
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    }
+
+    /**
+     * Acquire a slot for one request.
+     * @return the permit to complete once the request finished.
+     * @throws SkyworkAiTiangongConcurrencyLimitExceededException if the limit is reached.
+     */
+    public Permit acquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= (int) this.limit) {
+                this.rejections.increment();
+                throw new SkyworkAiTiangongConcurrencyLimitExceededException(
+                        "Concurrency limit of " + (int) this.limit + " requests in flight reached");
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    private synchronized void onSample(int inFlightAtStart, long latencyNanos, boolean dropped) {
+        double current = this.limit;
+        if (dropped || latencyNanos > this.latencyThresholdNanos) {
+            this.limit = Math.max(this.minLimit, current * this.backoffRatio);
+        }
+        else if (inFlightAtStart * 2 >= current) {
+            // only grow while at least half of the limit is in use
+            this.limit = Math.min(this.maxLimit, current + 1 / current);
+        }
+    }
+
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public long getRejectionCount() {
+        return this.rejections.sum();
+    }
+
+    /**
+     * One acquired request slot. Exactly the first completion call counts.
+     */
+    public class Permit {
+
+        private final int inFlightAtStart;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * The request succeeded, its latency counts from the acquisition.
+         */
+        public void onSuccess() {
+            onSuccess(System.nanoTime() - this.startNanos);
+        }
+
+        /**
+         * The request succeeded with the given latency, e.g. time to first chunk.
+         * @param latencyNanos the observed latency.
+         */
+        public void onSuccess(long latencyNanos) {
+            if (release()) {
+                onSample(this.inFlightAtStart, latencyNanos, false);
+            }
+        }
+
+        /**
+         * The request failed with an overload signal.
+         */
+        public void onDropped() {
+            if (release()) {
+                onSample(this.inFlightAtStart, 0, true);
+            }
+        }
+
+        /**
+         * The request ended without a usable sample, e.g. cancelled or a client error.
+         */
+        public void onIgnore() {
+            release();
+        }
+
+        public long getStartNanos() {
+            return this.startNanos;
+        }
+
+        private boolean release() {
+            if (this.released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
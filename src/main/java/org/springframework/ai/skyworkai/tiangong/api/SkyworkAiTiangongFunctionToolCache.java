@@ -0,0 +1,145 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tool definitions of function callbacks, resolved and serialized once per callback.
+ * <p>
+ * Building a {@link SkyworkAiTiangongApi.FunctionTool} parses the JSON schema of the
+ * callback into a map, which is serialized again into every request body. This cache
+ * keeps the tool and its JSON form per function name, and rebuilds them only when
+ * another callback is registered under that name. The returned tool lists write the
+ * cached JSON as is, and carry the estimated tokens of the tools.
+ */
+public class SkyworkAiTiangongFunctionToolCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final SkyworkAiTiangongTokenEstimator tokenEstimator = new SkyworkAiTiangongTokenEstimator();
+
+    private final Map<String, EncodedFunctionTool> tools = new ConcurrentHashMap<>();
+
+    public SkyworkAiTiangongFunctionToolCache() {
+        this(new ObjectMapper());
+    }
+
+    public SkyworkAiTiangongFunctionToolCache(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Get the tool definitions of the given function callbacks.
+     * @param functionCallbacks the function callbacks.
+     * @return the tools, in the order of the callbacks, serialized from their cached JSON.
+     */
+    public List<SkyworkAiTiangongApi.FunctionTool> getFunctionTools(List<FunctionCallback> functionCallbacks) {
+        EncodedFunctionTool[] encodedTools = new EncodedFunctionTool[functionCallbacks.size()];
+        int estimatedTokens = 0;
+        for (int i = 0; i < encodedTools.length; i++) {
+            encodedTools[i] = resolve(functionCallbacks.get(i));
+            estimatedTokens += encodedTools[i].estimatedTokens();
+        }
+        return new EncodedFunctionTools(encodedTools, estimatedTokens);
+    }
+
+    /**
+     * @return the number of cached tool definitions.
+     */
+    public int size() {
+        return this.tools.size();
+    }
+
+    private EncodedFunctionTool resolve(FunctionCallback functionCallback) {
+        EncodedFunctionTool cached = this.tools.get(functionCallback.getName());
+        if (cached != null && cached.functionCallback() == functionCallback) {
+            return cached;
+        }
+        // first use, or another callback replaced the one cached under this name
+        var function = new SkyworkAiTiangongApi.FunctionTool.Function(functionCallback.getDescription(),
+                functionCallback.getName(), functionCallback.getInputTypeSchema());
+        var tool = new SkyworkAiTiangongApi.FunctionTool(function);
+        EncodedFunctionTool encoded;
+        try {
+            encoded = new EncodedFunctionTool(functionCallback, tool, this.objectMapper.writeValueAsString(tool),
+                    this.tokenEstimator.estimateTool(tool));
+        }
+        catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize the tool of function " + functionCallback.getName(), ex);
+        }
+        this.tools.put(functionCallback.getName(), encoded);
+        return encoded;
+    }
+
+    private record EncodedFunctionTool(FunctionCallback functionCallback, SkyworkAiTiangongApi.FunctionTool tool,
+                                       String json, int estimatedTokens) {
+    }
+
+    /**
+     * Immutable list of tools serialized from their cached JSON.
+     */
+    @JsonSerialize(using = EncodedFunctionToolsSerializer.class)
+    static final class EncodedFunctionTools extends AbstractList<SkyworkAiTiangongApi.FunctionTool>
+            implements RandomAccess {
+
+        private final EncodedFunctionTool[] tools;
+
+        private final int estimatedTokens;
+
+        private EncodedFunctionTools(EncodedFunctionTool[] tools, int estimatedTokens) {
+            this.tools = tools;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        /**
+         * @return the estimated tokens of the tools, computed once per tool.
+         */
+        int estimatedTokens() {
+            return this.estimatedTokens;
+        }
+
+        @Override
+        public SkyworkAiTiangongApi.FunctionTool get(int index) {
+            return this.tools[index].tool();
+        }
+
+        @Override
+        public int size() {
+            return this.tools.length;
+        }
+
+    }
+
+    static final class EncodedFunctionToolsSerializer extends StdSerializer<EncodedFunctionTools> {
+
+        public EncodedFunctionToolsSerializer() {
+            super(EncodedFunctionTools.class);
+        }
+
+        @Override
+        public void serialize(EncodedFunctionTools value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartArray(value, value.tools.length);
+            for (EncodedFunctionTool tool : value.tools) {
+                generator.writeRawValue(tool.json());
+            }
+            generator.writeEndArray();
+        }
+
+    }
+
+}
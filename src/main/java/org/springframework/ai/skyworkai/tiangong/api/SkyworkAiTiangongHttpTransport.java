@@ -0,0 +1,110 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.Assert;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Pooled Reactor Netty transport for the Skywork AI Tiangong API, configured from
+ * {@link SkyworkAiTiangongTransportOptions}. A single instance backs both the
+ * {@code RestClient} and the {@code WebClient} of the chat and image APIs, so they share
+ * one connection pool and its warm TLS sessions. Owns its connection pool, which is
+ * released on {@link #close()}.
+ */
+public class SkyworkAiTiangongHttpTransport implements AutoCloseable {
+
+    /**
+     * Stands in for "no timeout" where a timeout is required.
+     */
+    private static final Duration NO_TIMEOUT = Duration.ofDays(1);
+
+    private final ConnectionProvider connectionProvider;
+
+    private final HttpClient httpClient;
+
+    private final ClientHttpConnector clientConnector;
+
+    private final ClientHttpRequestFactory requestFactory;
+
+    public SkyworkAiTiangongHttpTransport() {
+        this(SkyworkAiTiangongTransportOptions.builder().build());
+    }
+
+    public SkyworkAiTiangongHttpTransport(SkyworkAiTiangongTransportOptions options) {
+        Assert.notNull(options, "Transport options must not be null");
+
+        ConnectionProvider.Builder pool = ConnectionProvider.builder("skywork-tiangong")
+                .maxConnections(options.getMaxConnections())
+                .pendingAcquireMaxCount(options.getPendingAcquireMaxCount());
+        if (options.getPendingAcquireTimeout() != null) {
+            pool.pendingAcquireTimeout(options.getPendingAcquireTimeout());
+        }
+        if (options.getMaxIdleTime() != null) {
+            pool.maxIdleTime(options.getMaxIdleTime());
+        }
+        if (options.getMaxLifeTime() != null) {
+            pool.maxLifeTime(options.getMaxLifeTime());
+        }
+        if (options.getEvictInBackground() != null) {
+            pool.evictInBackground(options.getEvictInBackground());
+        }
+        this.connectionProvider = pool.build();
+
+        HttpClient client = HttpClient.create(this.connectionProvider)
+                .keepAlive(options.isKeepAlive());
+        if (options.isHttp2()) {
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        if (options.getConnectTimeout() != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) options.getConnectTimeout().toMillis());
+        }
+        if (options.getResponseTimeout() != null) {
+            client = client.responseTimeout(options.getResponseTimeout());
+        }
+        this.httpClient = client;
+        this.clientConnector = new ReactorClientHttpConnector(this.httpClient);
+        // The factory has its own exchange (5 s) and read (10 s) timeouts that would cut
+        // short slow non-streaming generations, align them with the response timeout
+        Duration responseTimeout = (options.getResponseTimeout() != null ? options.getResponseTimeout() : NO_TIMEOUT);
+        Duration connectTimeout = (options.getConnectTimeout() != null ? options.getConnectTimeout() : Duration.ZERO);
+        ReactorNettyClientRequestFactory requestFactory = new ReactorNettyClientRequestFactory(this.httpClient);
+        requestFactory.setExchangeTimeout(connectTimeout.plus(responseTimeout));
+        requestFactory.setReadTimeout(responseTimeout);
+        this.requestFactory = requestFactory;
+    }
+
+    /**
+     * @return the underlying Reactor Netty client.
+     */
+    public HttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
+    /**
+     * @return the connector to plug into a {@code WebClient.Builder}.
+     */
+    public ClientHttpConnector getClientConnector() {
+        return this.clientConnector;
+    }
+
+    /**
+     * @return the request factory to plug into a {@code RestClient.Builder}.
+     */
+    public ClientHttpRequestFactory getRequestFactory() {
+        return this.requestFactory;
+    }
+
+    @Override
+    public void close() {
+        this.connectionProvider.dispose();
+    }
+
+}
@@ -17,6 +17,10 @@ public class SkyworkAiTiangongImageApi {
 
     private final RestClient restClient;
 
+    private volatile SkyworkAiTiangongCircuitBreaker circuitBreaker;
+
+    private volatile SkyworkAiTiangongClientMetrics metrics = SkyworkAiTiangongClientMetrics.NOOP;
+
     /**
      * Create a new Skywork AI Tiangong Image api with base URL set to https://www.tiangong.cn/
      * @param apiKey Skywork AI Tiangong apiKey.
@@ -25,6 +29,16 @@ public class SkyworkAiTiangongImageApi {
         this(ApiUtils.DEFAULT_BASE_URL, apiKey, RestClient.builder());
     }
 
+    /**
+     * Create a new Skywork AI Tiangong Image API on top of a shared transport.
+     * @param baseUrl the base URL for the Skywork AI Tiangong API.
+     * @param apiKey Skywork AI Tiangong apiKey.
+     * @param httpTransport the transport shared with the chat api.
+     */
+    public SkyworkAiTiangongImageApi(String baseUrl, String apiKey, SkyworkAiTiangongHttpTransport httpTransport) {
+        this(baseUrl, apiKey, RestClient.builder().requestFactory(httpTransport.getRequestFactory()));
+    }
+
     /**
      * Create a new Skywork AI Tiangong Image API with the provided base URL.
      * @param baseUrl the base URL for the Skywork AI Tiangong API.
@@ -51,6 +65,27 @@ public class SkyworkAiTiangongImageApi {
                 .build();
     }
 
+    /**
+     * Fail fast while the image generations endpoint is failing.
+     * @param circuitBreaker the circuit breaker to use, {@code null} for none.
+     */
+    public void setCircuitBreaker(SkyworkAiTiangongCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public SkyworkAiTiangongCircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * Report the latencies of the image generations.
+     * @param metrics the metrics listener to use.
+     */
+    public void setMetrics(SkyworkAiTiangongClientMetrics metrics) {
+        Assert.notNull(metrics, "Metrics must not be null");
+        this.metrics = metrics;
+    }
+
     /**
      * Skywork AI Tiangong Image API model.
      * <a href="https://open.bigmodel.cn/dev/api#cogview">CogView</a>
@@ -109,11 +144,39 @@ public class SkyworkAiTiangongImageApi {
         Assert.notNull(imageRequest, "Image request cannot be null.");
         Assert.hasLength(imageRequest.prompt(), "Prompt cannot be empty.");
 
-        return this.restClient.post()
-                .uri("/api/paas/v4/images/generations")
-                .body(imageRequest)
-                .retrieve()
-                .toEntity(ZhipuAiImageResponse.class);
+        SkyworkAiTiangongCircuitBreaker circuitBreaker = this.circuitBreaker;
+        if (circuitBreaker == null) {
+            return generateImage(imageRequest);
+        }
+        SkyworkAiTiangongCircuitBreaker.Permit permit = circuitBreaker.acquire();
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<ZhipuAiImageResponse> response = generateImage(imageRequest);
+            permit.onSuccess(System.nanoTime() - start);
+            return response;
+        }
+        catch (RuntimeException ex) {
+            permit.onError(ex);
+            throw ex;
+        }
+    }
+
+    private ResponseEntity<ZhipuAiImageResponse> generateImage(ZhipuAiImageRequest imageRequest) {
+        SkyworkAiTiangongClientMetrics metrics = this.metrics;
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<ZhipuAiImageResponse> response = this.restClient.post()
+                    .uri("/api/paas/v4/images/generations")
+                    .body(imageRequest)
+                    .retrieve()
+                    .toEntity(ZhipuAiImageResponse.class);
+            metrics.onExchange("images.generations", imageRequest.model(), false, System.nanoTime() - start, null);
+            return response;
+        }
+        catch (RuntimeException ex) {
+            metrics.onExchange("images.generations", imageRequest.model(), false, System.nanoTime() - start, ex);
+            throw ex;
+        }
     }
 
 }
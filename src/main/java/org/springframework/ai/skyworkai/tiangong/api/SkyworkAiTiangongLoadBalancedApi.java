@@ -0,0 +1,305 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link SkyworkAiTiangongApi} spreading requests over a pool of members, each an api
+ * of its own key and/or endpoint, so that the pool scales past the quota of one key.
+ * <p>
+ * Every exchange goes to the healthy member with the lowest score: its outstanding
+ * requests ({@link Strategy#LEAST_OUTSTANDING}), or its moving average latency weighted
+ * by its outstanding requests ({@link Strategy#EWMA}). A member failing with an overload
+ * signal (429, 5xx, I/O error or timeout) {@code failureThreshold} times in a row is
+ * ejected for {@code ejectionDuration}; after that it gets traffic again and is ejected
+ * on its next failure until it succeeds once. When every member is ejected, the one
+ * returning first is used anyway.
+ * <p>
+ * Rate and concurrency limits belong to the members, request coalescing to the pool.
+ */
+public class SkyworkAiTiangongLoadBalancedApi extends SkyworkAiTiangongApi {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkyworkAiTiangongLoadBalancedApi.class);
+
+    /**
+     * Weight of the latest sample in the moving average latency.
+     */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    /**
+     * How the next member is chosen.
+     */
+    public enum Strategy {
+
+        /**
+         * Fewest requests in flight.
+         */
+        LEAST_OUTSTANDING,
+
+        /**
+         * Lowest moving average latency times requests in flight plus one.
+         */
+        EWMA
+
+    }
+
+    private final List<Member> members;
+
+    private final Strategy strategy;
+
+    private final int failureThreshold;
+
+    private final long ejectionNanos;
+
+    public SkyworkAiTiangongLoadBalancedApi(List<Member> members) {
+        this(members, Strategy.LEAST_OUTSTANDING, 3, Duration.ofSeconds(30));
+    }
+
+    public SkyworkAiTiangongLoadBalancedApi(List<Member> members, Strategy strategy, int failureThreshold,
+                                            Duration ejectionDuration) {
+        Assert.notEmpty(members, "Members must not be empty");
+        Assert.notNull(strategy, "Strategy must not be null");
+        Assert.isTrue(failureThreshold > 0, "Failure threshold must be positive");
+        Assert.notNull(ejectionDuration, "Ejection duration must not be null");
+        this.members = List.copyOf(members);
+        this.strategy = strategy;
+        this.failureThreshold = failureThreshold;
+        this.ejectionNanos = ejectionDuration.toNanos();
+    }
+
+    /**
+     * @return the members of the pool with their current stats.
+     */
+    public List<Member> getMembers() {
+        return this.members;
+    }
+
+    @Override
+    protected ResponseEntity<ChatCompletion> exchangeChatCompletion(ChatCompletionRequest chatRequest) {
+        Member member = select();
+        long start = member.begin();
+        try {
+            ResponseEntity<ChatCompletion> response = member.getApi().chatCompletionEntity(chatRequest);
+            member.onSuccess(System.nanoTime() - start);
+            return response;
+        }
+        catch (RuntimeException ex) {
+            onFailure(member, ex);
+            throw ex;
+        }
+    }
+
+    @Override
+    protected Flux<ChatCompletionChunk> exchangeChatCompletionStream(ChatCompletionRequest chatRequest) {
+        return balancedExchange(member -> member.getApi().chatCompletionStream(chatRequest));
+    }
+
+    @Override
+    protected Mono<ResponseEntity<ChatCompletion>> exchangeChatCompletionAsync(ChatCompletionRequest chatRequest) {
+        return balancedExchange(member -> member.getApi().chatCompletionEntityAsync(chatRequest).flux())
+                // wait for completion, next() would cancel and skip the success hooks
+                .singleOrEmpty();
+    }
+
+    private <T> Flux<T> balancedExchange(Function<Member, Flux<T>> exchange) {
+        return Flux.defer(() -> {
+            Member member = select();
+            long start = member.begin();
+            AtomicLong firstElementLatency = new AtomicLong(-1);
+            AtomicInteger done = new AtomicInteger();
+            // an exchange stays outstanding until it terminates, latency is the time to
+            // the first element
+            return exchange.apply(member)
+                    .doOnNext(element -> firstElementLatency.compareAndSet(-1, System.nanoTime() - start))
+                    .doOnComplete(() -> {
+                        if (done.compareAndSet(0, 1)) {
+                            long latency = firstElementLatency.get();
+                            member.onSuccess(latency >= 0 ? latency : System.nanoTime() - start);
+                        }
+                    })
+                    .doOnError(ex -> {
+                        if (done.compareAndSet(0, 1)) {
+                            onFailure(member, ex);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(0, 1)) {
+                            member.end();
+                        }
+                    });
+        });
+    }
+
+    private Member select() {
+        long now = System.nanoTime();
+        int size = this.members.size();
+        // start at a random offset so that ties are spread evenly
+        int offset = ThreadLocalRandom.current().nextInt(size);
+        double unsampledLatency = (this.strategy == Strategy.EWMA ? unsampledLatency() : 0);
+        Member best = null;
+        double bestScore = Double.MAX_VALUE;
+        Member firstBack = null;
+        for (int i = 0; i < size; i++) {
+            Member member = this.members.get((offset + i) % size);
+            if (member.isEjected(now)) {
+                if (firstBack == null || member.ejectedUntil - firstBack.ejectedUntil < 0) {
+                    firstBack = member;
+                }
+                continue;
+            }
+            double score = score(member, unsampledLatency);
+            if (score < bestScore || (score == bestScore && member.outstanding.get() < best.outstanding.get())) {
+                best = member;
+                bestScore = score;
+            }
+        }
+        return (best != null ? best : firstBack);
+    }
+
+    private double score(Member member, double unsampledLatency) {
+        int outstanding = member.outstanding.get();
+        if (this.strategy == Strategy.EWMA) {
+            double latency = member.latencyEwmaNanos;
+            return (latency > 0 ? latency : unsampledLatency) * (outstanding + 1);
+        }
+        return outstanding;
+    }
+
+    /**
+     * Latency assumed for members without samples yet: the mean of the sampled members,
+     * so that a fresh member does not take every request until its first sample
+     * arrives, or one when no member has samples, which scores by outstanding requests.
+     */
+    private double unsampledLatency() {
+        double sum = 0;
+        int sampled = 0;
+        for (Member member : this.members) {
+            double latency = member.latencyEwmaNanos;
+            if (latency > 0) {
+                sum += latency;
+                sampled++;
+            }
+        }
+        return (sampled > 0 ? sum / sampled : 1);
+    }
+
+    private void onFailure(Member member, Throwable ex) {
+        if (!SkyworkAiTiangongApi.isOverloadError(ex)) {
+            // a client error says nothing about the health of the member
+            member.end();
+            return;
+        }
+        if (member.onFailure() >= this.failureThreshold) {
+            member.ejectedUntil = System.nanoTime() + this.ejectionNanos;
+            member.ejections.increment();
+            logger.warn("Ejected load balancer member {} for {} ms after {} consecutive failures", member.getName(),
+                    Duration.ofNanos(this.ejectionNanos).toMillis(), this.failureThreshold);
+        }
+    }
+
+    /**
+     * One api of the pool and its stats.
+     */
+    public static class Member {
+
+        private final String name;
+
+        private final SkyworkAiTiangongApi api;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final LongAdder successes = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder ejections = new LongAdder();
+
+        private volatile double latencyEwmaNanos;
+
+        private volatile long ejectedUntil = System.nanoTime();
+
+        public Member(String name, SkyworkAiTiangongApi api) {
+            Assert.hasText(name, "Name must not be empty");
+            Assert.notNull(api, "Api must not be null");
+            this.name = name;
+            this.api = api;
+        }
+
+        private long begin() {
+            this.outstanding.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        private void end() {
+            this.outstanding.decrementAndGet();
+        }
+
+        private void onSuccess(long latencyNanos) {
+            end();
+            this.successes.increment();
+            this.consecutiveFailures.set(0);
+            synchronized (this) {
+                double ewma = this.latencyEwmaNanos;
+                this.latencyEwmaNanos = (ewma == 0 ? latencyNanos : ewma + EWMA_WEIGHT * (latencyNanos - ewma));
+            }
+        }
+
+        private int onFailure() {
+            end();
+            this.failures.increment();
+            return this.consecutiveFailures.incrementAndGet();
+        }
+
+        private boolean isEjected(long now) {
+            return this.ejectedUntil - now > 0;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public SkyworkAiTiangongApi getApi() {
+            return this.api;
+        }
+
+        public int getOutstanding() {
+            return this.outstanding.get();
+        }
+
+        public double getLatencyEwmaMillis() {
+            return this.latencyEwmaNanos / 1_000_000;
+        }
+
+        public long getSuccessCount() {
+            return this.successes.sum();
+        }
+
+        public long getFailureCount() {
+            return this.failures.sum();
+        }
+
+        public long getEjectionCount() {
+            return this.ejections.sum();
+        }
+
+        public boolean isEjected() {
+            return isEjected(System.nanoTime());
+        }
+
+    }
+
+}
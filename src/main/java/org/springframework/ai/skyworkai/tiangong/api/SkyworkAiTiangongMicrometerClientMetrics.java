@@ -0,0 +1,301 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link SkyworkAiTiangongClientMetrics} recording to a Micrometer {@link MeterRegistry}.
+ * <ul>
+ * <li>{@code skywork.tiangong.client.requests}: exchange latency by endpoint, model,
+ * stream, outcome ({@code success}, {@code error} or {@code cancelled}) and status, with
+ * a percentile histogram</li>
+ * <li>{@code skywork.tiangong.client.stream.first.token} and
+ * {@code skywork.tiangong.client.stream.chunk.gap}: time to first token and between
+ * chunks of streams</li>
+ * <li>{@code skywork.tiangong.client.tokens}: prompt and completion tokens, and
+ * {@code skywork.tiangong.client.tokens.throughput}: completion tokens per second</li>
+ * <li>{@code skywork.tiangong.client.finish.reasons}: finished choices by reason</li>
+ * <li>{@code skywork.tiangong.client.tool.rounds}: function calling round trips, and
+ * {@code skywork.tiangong.client.tool.calls}: functions called per round</li>
+ * </ul>
+ */
+public class SkyworkAiTiangongMicrometerClientMetrics implements SkyworkAiTiangongClientMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final String SUCCESS_STATUS = "200";
+
+    private static final String CANCELLED_STATUS = "cancelled";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Meters per model, registered on first use. Successful exchanges, the hot path, look
+     * up their timer by model, endpoint and stream without allocating.
+     */
+    private final Map<String, ModelMeters> models = new ConcurrentHashMap<>();
+
+    private final ModelMeters unknownModel;
+
+    public SkyworkAiTiangongMicrometerClientMetrics(MeterRegistry registry) {
+        Assert.notNull(registry, "Registry must not be null");
+        this.registry = registry;
+        this.unknownModel = new ModelMeters(UNKNOWN);
+    }
+
+    @Override
+    public void onExchange(String endpoint, String model, boolean stream, long latencyNanos, Throwable error) {
+        meters(model).exchange(endpoint, stream, status(error)).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onFirstChunk(String model, long latencyNanos) {
+        meters(model).firstChunk().record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onChunkGap(String model, long gapNanos) {
+        meters(model).chunkGap().record(gapNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onUsage(String model, SkyworkAiTiangongApi.Usage usage, long latencyNanos) {
+        ModelMeters meters = meters(model);
+        if (usage.promptTokens() != null) {
+            meters.promptTokens().increment(usage.promptTokens());
+        }
+        if (usage.completionTokens() != null) {
+            meters.completionTokens().increment(usage.completionTokens());
+            if (latencyNanos > 0) {
+                meters.throughput().record(usage.completionTokens() * 1e9 / latencyNanos);
+            }
+        }
+    }
+
+    @Override
+    public void onFinishReason(String model, SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason) {
+        meters(model).finishReason(finishReason).increment();
+    }
+
+    @Override
+    public void onToolRound(String model, int toolCalls) {
+        ModelMeters meters = meters(model);
+        meters.toolRounds().increment();
+        meters.toolCalls().record(toolCalls);
+    }
+
+    private ModelMeters meters(String model) {
+        if (model == null) {
+            return this.unknownModel;
+        }
+        ModelMeters meters = this.models.get(model);
+        return (meters != null ? meters : this.models.computeIfAbsent(model, ModelMeters::new));
+    }
+
+    private static String status(Throwable error) {
+        if (error == null) {
+            return SUCCESS_STATUS;
+        }
+        if (error instanceof CancellationException) {
+            return CANCELLED_STATUS;
+        }
+        if (error instanceof WebClientResponseException responseException) {
+            return String.valueOf(responseException.getStatusCode().value());
+        }
+        if (error instanceof RestClientResponseException responseException) {
+            return String.valueOf(responseException.getStatusCode().value());
+        }
+        // the default response error handler reports the status code first
+        String message = error.getMessage();
+        if (message != null && message.length() >= 3 && message.chars().limit(3).allMatch(Character::isDigit)
+                && !message.startsWith(SUCCESS_STATUS)) {
+            return message.substring(0, 3);
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    /**
+     * Meters of one model. Each meter is registered when first used; a race registers it
+     * twice, which the registry resolves to the same meter.
+     */
+    private final class ModelMeters {
+
+        private final String model;
+
+        private final Map<String, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+
+        private final AtomicReferenceArray<Counter> finishReasons = new AtomicReferenceArray<>(
+                SkyworkAiTiangongApi.ChatCompletionFinishReason.values().length);
+
+        private volatile Timer firstChunk;
+
+        private volatile Timer chunkGap;
+
+        private volatile Counter promptTokens;
+
+        private volatile Counter completionTokens;
+
+        private volatile DistributionSummary throughput;
+
+        private volatile Counter toolRounds;
+
+        private volatile DistributionSummary toolCalls;
+
+        private ModelMeters(String model) {
+            this.model = model;
+        }
+
+        private Timer exchange(String endpoint, boolean stream, String status) {
+            EndpointMeters meters = this.endpoints.get(endpoint);
+            if (meters == null) {
+                meters = this.endpoints.computeIfAbsent(endpoint, k -> new EndpointMeters());
+            }
+            Map<String, Timer> timers = (stream ? meters.streamed : meters.unary);
+            Timer timer = timers.get(status);
+            if (timer == null) {
+                timer = timers.computeIfAbsent(status, k -> Timer.builder("skywork.tiangong.client.requests")
+                        .description("Latency of the exchanges with the Skywork AI Tiangong API")
+                        .tags(Tags.of("endpoint", endpoint, "model", this.model, "stream", String.valueOf(stream),
+                                "outcome", outcome(k), "status", k))
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            return timer;
+        }
+
+        private Timer firstChunk() {
+            Timer timer = this.firstChunk;
+            if (timer == null) {
+                timer = Timer.builder("skywork.tiangong.client.stream.first.token")
+                        .description("Time from the request to the first chunk of a stream")
+                        .tag("model", this.model)
+                        .publishPercentileHistogram()
+                        .register(registry);
+                this.firstChunk = timer;
+            }
+            return timer;
+        }
+
+        private Timer chunkGap() {
+            Timer timer = this.chunkGap;
+            if (timer == null) {
+                timer = Timer.builder("skywork.tiangong.client.stream.chunk.gap")
+                        .description("Time between two chunks of a stream")
+                        .tag("model", this.model)
+                        .publishPercentileHistogram()
+                        .register(registry);
+                this.chunkGap = timer;
+            }
+            return timer;
+        }
+
+        private Counter promptTokens() {
+            Counter counter = this.promptTokens;
+            if (counter == null) {
+                counter = tokens("prompt");
+                this.promptTokens = counter;
+            }
+            return counter;
+        }
+
+        private Counter completionTokens() {
+            Counter counter = this.completionTokens;
+            if (counter == null) {
+                counter = tokens("completion");
+                this.completionTokens = counter;
+            }
+            return counter;
+        }
+
+        private Counter tokens(String type) {
+            return Counter.builder("skywork.tiangong.client.tokens")
+                    .description("Tokens consumed")
+                    .baseUnit("tokens")
+                    .tags("model", this.model, "type", type)
+                    .register(registry);
+        }
+
+        private DistributionSummary throughput() {
+            DistributionSummary summary = this.throughput;
+            if (summary == null) {
+                summary = DistributionSummary.builder("skywork.tiangong.client.tokens.throughput")
+                        .description("Completion tokens generated per second")
+                        .baseUnit("tokens/s")
+                        .tag("model", this.model)
+                        .register(registry);
+                this.throughput = summary;
+            }
+            return summary;
+        }
+
+        private Counter finishReason(SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason) {
+            Counter counter = this.finishReasons.get(finishReason.ordinal());
+            if (counter == null) {
+                counter = Counter.builder("skywork.tiangong.client.finish.reasons")
+                        .description("Finished choices by finish reason")
+                        .tags("model", this.model, "reason", finishReason.name())
+                        .register(registry);
+                this.finishReasons.set(finishReason.ordinal(), counter);
+            }
+            return counter;
+        }
+
+        private Counter toolRounds() {
+            Counter counter = this.toolRounds;
+            if (counter == null) {
+                counter = Counter.builder("skywork.tiangong.client.tool.rounds")
+                        .description("Function calling round trips")
+                        .tag("model", this.model)
+                        .register(registry);
+                this.toolRounds = counter;
+            }
+            return counter;
+        }
+
+        private DistributionSummary toolCalls() {
+            DistributionSummary summary = this.toolCalls;
+            if (summary == null) {
+                summary = DistributionSummary.builder("skywork.tiangong.client.tool.calls")
+                        .description("Functions called per round trip")
+                        .tag("model", this.model)
+                        .register(registry);
+                this.toolCalls = summary;
+            }
+            return summary;
+        }
+
+    }
+
+    private static String outcome(String status) {
+        return switch (status) {
+            case SUCCESS_STATUS -> "success";
+            case CANCELLED_STATUS -> "cancelled";
+            default -> "error";
+        };
+    }
+
+    /**
+     * Exchange timers of one model and endpoint by status, for unary and streamed
+     * exchanges.
+     */
+    private static final class EndpointMeters {
+
+        private final Map<String, Timer> unary = new ConcurrentHashMap<>();
+
+        private final Map<String, Timer> streamed = new ConcurrentHashMap<>();
+
+    }
+
+}
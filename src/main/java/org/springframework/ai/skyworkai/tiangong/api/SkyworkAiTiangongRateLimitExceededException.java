@@ -0,0 +1,15 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.ai.retry.NonTransientAiException;
+
+/**
+ * Thrown when the client-side rate limiter rejects a request instead of queuing it.
+ * Non-transient so that it is not fed back into the retry template.
+ */
+public class SkyworkAiTiangongRateLimitExceededException extends NonTransientAiException {
+
+    public SkyworkAiTiangongRateLimitExceededException(String message) {
+        super(message);
+    }
+
+}
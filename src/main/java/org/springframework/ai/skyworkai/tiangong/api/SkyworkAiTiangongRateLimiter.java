@@ -0,0 +1,141 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side rate limiter of one API key, enforcing a requests-per-second and a
+ * tokens-per-minute budget with two token buckets.
+ * <p>
+ * Each request reserves one request permit and its estimated token count (prompt length
+ * plus {@code max_tokens}). Reservations may run the buckets into debt, the caller then
+ * waits until the debt is repaid, so queued requests are released in order at the
+ * configured rate. A reservation that would have to wait longer than {@code maxWait} is
+ * rejected with a {@link SkyworkAiTiangongRateLimitExceededException}; a zero
+ * {@code maxWait} fails fast. Once the response arrives, the estimate is reconciled with
+ * the reported {@link SkyworkAiTiangongApi.Usage}, and a request abandoned before it was
+ * sent gives its reservation back.
+ */
+public class SkyworkAiTiangongRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double requestsPerSecond;
+
+    private final double tokensPerMinute;
+
+    private final long maxWaitNanos;
+
+    private final SkyworkAiTiangongTokenEstimator tokenEstimator = new SkyworkAiTiangongTokenEstimator();
+
+    private double availableRequests;
+
+    private double availableTokens;
+
+    private long lastRefillNanos;
+
+    public SkyworkAiTiangongRateLimiter(double requestsPerSecond, double tokensPerMinute, Duration maxWait) {
+        Assert.isTrue(requestsPerSecond > 0, "Requests per second must be positive");
+        Assert.isTrue(tokensPerMinute > 0, "Tokens per minute must be positive");
+        Assert.notNull(maxWait, "Max wait must not be null");
+        this.requestsPerSecond = requestsPerSecond;
+        this.tokensPerMinute = tokensPerMinute;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.availableRequests = Math.max(1, requestsPerSecond);
+        this.availableTokens = tokensPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Estimate the tokens a request consumes: its prompt plus the completion budget.
+     * @param request the chat completion request.
+     * @return the estimated token count.
+     */
+    public int estimateTokens(SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        return this.tokenEstimator.estimatePrompt(request) + (request.maxTokens() != null ? request.maxTokens() : 0);
+    }
+
+    /**
+     * Reserve one request and the given tokens.
+     * @param tokens the estimated tokens of the request.
+     * @return the nanoseconds the caller has to wait before sending the request.
+     * @throws SkyworkAiTiangongRateLimitExceededException if the wait would exceed the
+     * max wait.
+     */
+    public synchronized long reserve(int tokens) {
+        refill(System.nanoTime());
+        // a request larger than the whole budget can never fit, let it pass at full debt
+        double requestedTokens = Math.min(tokens, this.tokensPerMinute);
+        long waitNanos = Math.max(
+                nanosToRepay(1 - this.availableRequests, this.requestsPerSecond),
+                nanosToRepay(requestedTokens - this.availableTokens, this.tokensPerMinute / 60));
+        if (waitNanos > this.maxWaitNanos) {
+            throw new SkyworkAiTiangongRateLimitExceededException("Rate limit exceeded, request would wait "
+                    + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms");
+        }
+        this.availableRequests -= 1;
+        this.availableTokens -= requestedTokens;
+        return waitNanos;
+    }
+
+    /**
+     * Reserve one request and the given tokens, blocking the calling thread until they
+     * are available.
+     * @param tokens the estimated tokens of the request.
+     */
+    public void acquire(int tokens) {
+        long waitNanos = reserve(tokens);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            catch (InterruptedException ex) {
+                release(tokens);
+                Thread.currentThread().interrupt();
+                throw new SkyworkAiTiangongRateLimitExceededException("Interrupted while waiting for rate limit");
+            }
+        }
+    }
+
+    /**
+     * Correct the token budget once the actual usage of a request is known.
+     * @param estimatedTokens the tokens reserved for the request.
+     * @param usage the usage reported by the server.
+     */
+    public synchronized void reconcile(int estimatedTokens, SkyworkAiTiangongApi.Usage usage) {
+        if (usage == null || usage.totalTokens() == null) {
+            return;
+        }
+        double reserved = Math.min(estimatedTokens, this.tokensPerMinute);
+        this.availableTokens = Math.min(this.tokensPerMinute, this.availableTokens + reserved - usage.totalTokens());
+    }
+
+    /**
+     * Give back the reservation of a request that was abandoned before it was sent.
+     * @param tokens the tokens reserved for the request.
+     */
+    public synchronized void release(int tokens) {
+        refill(System.nanoTime());
+        this.availableRequests = Math.min(Math.max(1, this.requestsPerSecond), this.availableRequests + 1);
+        this.availableTokens = Math.min(this.tokensPerMinute,
+                this.availableTokens + Math.min(tokens, this.tokensPerMinute));
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (double) (now - this.lastRefillNanos) / NANOS_PER_SECOND;
+        if (elapsedSeconds > 0) {
+            this.availableRequests = Math.min(Math.max(1, this.requestsPerSecond),
+                    this.availableRequests + elapsedSeconds * this.requestsPerSecond);
+            this.availableTokens = Math.min(this.tokensPerMinute,
+                    this.availableTokens + elapsedSeconds * this.tokensPerMinute / 60);
+            this.lastRefillNanos = now;
+        }
+    }
+
+    private static long nanosToRepay(double deficit, double ratePerSecond) {
+        return (deficit > 0 ? (long) Math.ceil(deficit / ratePerSecond * NANOS_PER_SECOND) : 0);
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedges blocking exchanges to cut their tail latency: when an exchange has not
+ * answered within the configured percentile of the recent exchange latencies, an
+ * identical second exchange is started and the first response wins. The loser is
+ * cancelled, interrupting its thread.
+ * <p>
+ * Every exchange earns {@code maxHedgeRatio} of a hedge, a hedge is only sent while a
+ * whole one has been earned, so hedges never exceed that share of the traffic. Until
+ * enough latencies are recorded the initial delay is used.
+ * <p>
+ * A failure before the hedge is sent is propagated at once. Once both exchanges are
+ * running, a failure is propagated only if the other one fails as well.
+ */
+public class SkyworkAiTiangongRequestHedger {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private static final int RECOMPUTE_INTERVAL = 50;
+
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final long initialDelayNanos;
+
+    private final double maxHedgeRatio;
+
+    private final long[] samples;
+
+    private int sampleCount;
+
+    private int nextSample;
+
+    private long delayNanos;
+
+    private double budget = 1;
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private Scheduler scheduler = Schedulers.boundedElastic();
+
+    public SkyworkAiTiangongRequestHedger(double percentile, Duration minDelay, Duration initialDelay,
+                                          double maxHedgeRatio) {
+        this(percentile, minDelay, initialDelay, maxHedgeRatio, 1000);
+    }
+
+    public SkyworkAiTiangongRequestHedger(double percentile, Duration minDelay, Duration initialDelay,
+                                          double maxHedgeRatio, int window) {
+        Assert.isTrue(percentile > 0 && percentile < 1, "Percentile must be between 0 and 1");
+        Assert.notNull(minDelay, "Min delay must not be null");
+        Assert.notNull(initialDelay, "Initial delay must not be null");
+        Assert.isTrue(maxHedgeRatio > 0 && maxHedgeRatio <= 1, "Max hedge ratio must be between 0 and 1");
+        Assert.isTrue(window >= MIN_SAMPLES, "Window must hold at least " + MIN_SAMPLES + " samples");
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.samples = new long[window];
+        this.delayNanos = Math.max(this.minDelayNanos, this.initialDelayNanos);
+    }
+
+    /**
+     * Set the scheduler the exchanges block on. Defaults to
+     * {@link Schedulers#boundedElastic()}, which must stay a scheduler that allows
+     * blocking.
+     * @param scheduler the scheduler to use.
+     */
+    public void setScheduler(Scheduler scheduler) {
+        Assert.notNull(scheduler, "Scheduler must not be null");
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Run the exchange, hedging it if it is slow.
+     * @param exchange the blocking exchange, safe to run twice.
+     * @param <T> the response type.
+     * @return the first response.
+     */
+    public <T> T execute(Callable<T> exchange) {
+        long delay = earnBudgetAndGetDelay();
+        // started and finished attempts, a failure wins only once every started one failed
+        AtomicInteger started = new AtomicInteger(1);
+        AtomicInteger failed = new AtomicInteger();
+
+        Mono<Signal<T>> primary = attempt(exchange, false);
+        Mono<Signal<T>> hedge = Mono.delay(Duration.ofNanos(delay))
+                .filter(tick -> tryHedge())
+                .flatMap(tick -> {
+                    started.incrementAndGet();
+                    return attempt(exchange, true);
+                });
+
+        return Flux.merge(primary, hedge)
+                .<T>handle((signal, sink) -> {
+                    if (signal.hasValue()) {
+                        sink.next(signal.get());
+                    }
+                    else if (signal.hasError() && failed.incrementAndGet() >= started.get()) {
+                        sink.error(signal.getThrowable());
+                    }
+                })
+                .next()
+                .block();
+    }
+
+    private <T> Mono<Signal<T>> attempt(Callable<T> exchange, boolean isHedge) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.fromCallable(exchange)
+                    .subscribeOn(this.scheduler)
+                    .doOnSuccess(response -> {
+                        record(System.nanoTime() - start);
+                        if (isHedge) {
+                            this.hedgeWins.increment();
+                        }
+                    })
+                    // a cancelled loser took at least this long, keep the tail visible
+                    .doOnCancel(() -> record(System.nanoTime() - start))
+                    .materialize();
+        });
+    }
+
+    private synchronized long earnBudgetAndGetDelay() {
+        this.budget = Math.min(MAX_BUDGET, this.budget + this.maxHedgeRatio);
+        return this.delayNanos;
+    }
+
+    private synchronized boolean tryHedge() {
+        if (this.budget < 1) {
+            return false;
+        }
+        this.budget -= 1;
+        this.hedges.increment();
+        return true;
+    }
+
+    private synchronized void record(long latencyNanos) {
+        this.samples[this.nextSample] = latencyNanos;
+        this.nextSample = (this.nextSample + 1) % this.samples.length;
+        if (this.sampleCount < this.samples.length) {
+            this.sampleCount++;
+        }
+        if (this.sampleCount >= MIN_SAMPLES && this.nextSample % RECOMPUTE_INTERVAL == 0) {
+            long[] sorted = Arrays.copyOf(this.samples, this.sampleCount);
+            Arrays.sort(sorted);
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(this.percentile * sorted.length) - 1);
+            this.delayNanos = Math.max(this.minDelayNanos, sorted[index]);
+        }
+    }
+
+    /**
+     * @return the current delay after which an exchange is hedged.
+     */
+    public synchronized Duration getDelay() {
+        return Duration.ofNanos(this.delayNanos);
+    }
+
+    public long getHedgeCount() {
+        return this.hedges.sum();
+    }
+
+    public long getHedgeWinCount() {
+        return this.hedgeWins.sum();
+    }
+
+}
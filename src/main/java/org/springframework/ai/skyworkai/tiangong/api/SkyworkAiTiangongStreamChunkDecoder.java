@@ -0,0 +1,260 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodes the Server-Sent Events body of a streaming chat completion straight into
+ * {@link SkyworkAiTiangongApi.ChatCompletionChunk} records.
+ * <p>
+ * The SSE framing is scanned at the byte level, the {@code data:} payloads are fed
+ * into a Jackson non-blocking parser as they arrive and the terminating
+ * {@code data: [DONE]} event is recognised without materializing the event as a
+ * {@link String}.
+ */
+public class SkyworkAiTiangongStreamChunkDecoder {
+
+    /**
+     * Marks the {@code [DONE]} event, never emitted downstream.
+     */
+    private static final SkyworkAiTiangongApi.ChatCompletionChunk END_OF_STREAM = new SkyworkAiTiangongApi.ChatCompletionChunk(
+            null, null, null, null, null, null);
+
+    private static final byte[] DATA_FIELD = { 'd', 'a', 't', 'a' };
+
+    private static final byte[] DONE_PAYLOAD = { '[', 'D', 'O', 'N', 'E', ']' };
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader chunkReader;
+
+    public SkyworkAiTiangongStreamChunkDecoder() {
+        this(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    public SkyworkAiTiangongStreamChunkDecoder(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        this.objectMapper = objectMapper;
+        this.chunkReader = objectMapper.readerFor(SkyworkAiTiangongApi.ChatCompletionChunk.class);
+    }
+
+    /**
+     * Decode the raw SSE body into chat completion chunks. The returned {@link Flux}
+     * completes as soon as the {@code [DONE]} event is read.
+     * @param body the response body as emitted by the HTTP client.
+     * @return the decoded chunks.
+     */
+    public Flux<SkyworkAiTiangongApi.ChatCompletionChunk> decode(Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+            EventStreamReader reader = new EventStreamReader();
+            return body.concatMapIterable(reader::read)
+                    .takeWhile(chunk -> chunk != END_OF_STREAM)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> reader.close());
+        });
+    }
+
+    /**
+     * Per-subscription SSE reader. Not thread-safe, driven sequentially by
+     * {@code concatMapIterable}.
+     */
+    private class EventStreamReader {
+
+        private static final int FIELD = 0;
+
+        private static final int DATA_START = 1;
+
+        private static final int DATA_FIRST = 2;
+
+        private static final int DATA = 3;
+
+        private static final int SKIP_LINE = 4;
+
+        private static final int DONE = 5;
+
+        private final JsonParser parser;
+
+        private final ByteBufferFeeder feeder;
+
+        private TokenBuffer tokenBuffer;
+
+        private int depth;
+
+        private int state = FIELD;
+
+        private int fieldLength;
+
+        private int doneLength;
+
+        private boolean fieldMatches = true;
+
+        private boolean done;
+
+        EventStreamReader() {
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            }
+            catch (IOException ex) {
+                throw new IllegalStateException("Failed to create non-blocking JSON parser", ex);
+            }
+            this.feeder = (ByteBufferFeeder) this.parser.getNonBlockingInputFeeder();
+        }
+
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> read(DataBuffer dataBuffer) {
+            try {
+                if (this.done) {
+                    return Collections.emptyList();
+                }
+                List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = null;
+                try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+                    while (iterator.hasNext() && !this.done) {
+                        chunks = scan(iterator.next(), chunks);
+                    }
+                }
+                if (this.done) {
+                    chunks = (chunks != null ? chunks : new ArrayList<>(1));
+                    chunks.add(END_OF_STREAM);
+                }
+                return (chunks != null ? chunks : Collections.emptyList());
+            }
+            finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+
+        private List<SkyworkAiTiangongApi.ChatCompletionChunk> scan(ByteBuffer buffer,
+                List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+            int limit = buffer.limit();
+            int payloadStart = buffer.position();
+            for (int i = buffer.position(); i < limit; i++) {
+                byte b = buffer.get(i);
+                switch (this.state) {
+                    case FIELD -> {
+                        if (b == ':') {
+                            this.state = (this.fieldMatches && this.fieldLength == DATA_FIELD.length) ? DATA_START : SKIP_LINE;
+                        }
+                        else if (b == '\n') {
+                            // blank line dispatches the event, a field without value is ignored
+                            resetField();
+                        }
+                        else if (b != '\r') {
+                            if (this.fieldLength >= DATA_FIELD.length || DATA_FIELD[this.fieldLength] != b) {
+                                this.fieldMatches = false;
+                            }
+                            this.fieldLength++;
+                        }
+                    }
+                    case DATA_START, DATA_FIRST -> {
+                        if (this.state == DATA_START && b == ' ') {
+                            this.state = DATA_FIRST;
+                        }
+                        else if (b == '\n') {
+                            resetField();
+                        }
+                        else if (b == DONE_PAYLOAD[0]) {
+                            // JSON chunks are objects, the only other payload is [DONE]
+                            this.state = DONE;
+                            this.doneLength = 1;
+                        }
+                        else {
+                            this.state = DATA;
+                            payloadStart = i;
+                        }
+                    }
+                    case DATA -> {
+                        if (b == '\n') {
+                            chunks = feed(buffer, payloadStart, i, chunks);
+                            resetField();
+                        }
+                    }
+                    case DONE -> {
+                        if (this.doneLength < DONE_PAYLOAD.length && b == DONE_PAYLOAD[this.doneLength]) {
+                            this.doneLength++;
+                        }
+                        else if (this.doneLength == DONE_PAYLOAD.length && b == '\n') {
+                            this.done = true;
+                            return chunks;
+                        }
+                        else if (this.doneLength < DONE_PAYLOAD.length || b != '\r') {
+                            throw new DecodingException("Unexpected chat completion stream payload, expected [DONE]");
+                        }
+                    }
+                    default -> {
+                        if (b == '\n') {
+                            resetField();
+                        }
+                    }
+                }
+            }
+            if (this.state == DATA) {
+                chunks = feed(buffer, payloadStart, limit, chunks);
+            }
+            return chunks;
+        }
+
+        private void resetField() {
+            this.state = FIELD;
+            this.fieldLength = 0;
+            this.fieldMatches = true;
+        }
+
+        private List<SkyworkAiTiangongApi.ChatCompletionChunk> feed(ByteBuffer buffer, int start, int end,
+                List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+            if (start >= end) {
+                return chunks;
+            }
+            try {
+                this.feeder.feedInput(buffer.slice(start, end - start));
+                JsonToken token;
+                while ((token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                    if (this.tokenBuffer == null) {
+                        this.tokenBuffer = new TokenBuffer(this.parser);
+                    }
+                    this.tokenBuffer.copyCurrentEvent(this.parser);
+                    if (token.isStructStart()) {
+                        this.depth++;
+                    }
+                    else if (token.isStructEnd()) {
+                        this.depth--;
+                    }
+                    if (this.depth == 0) {
+                        chunks = (chunks != null ? chunks : new ArrayList<>(2));
+                        chunks.add(chunkReader.readValue(this.tokenBuffer.asParser(objectMapper)));
+                        this.tokenBuffer = null;
+                    }
+                }
+                return chunks;
+            }
+            catch (IOException ex) {
+                throw new DecodingException("Failed to decode chat completion chunk", ex);
+            }
+        }
+
+        void close() {
+            try {
+                this.parser.close();
+            }
+            catch (IOException ex) {
+                // ignore, nothing left to release
+            }
+        }
+
+    }
+
+}
@@ -26,13 +26,15 @@ public class SkyworkAiTiangongStreamFunctionCallingHelper {
         String model = (current.model() != null ? current.model() : previous.model());
         String requestId = (current.requestId() != null ? current.requestId() : previous.requestId());
         String object = (current.object() != null ? current.object() : previous.object());
+        SkyworkAiTiangongApi.Usage usage = (current.usage() != null ? current.usage() : previous.usage());
 
         SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice previousChoice0 = (CollectionUtils.isEmpty(previous.choices()) ? null : previous.choices().get(0));
         SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice currentChoice0 = (CollectionUtils.isEmpty(current.choices()) ? null : current.choices().get(0));
 
         SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice choice = merge(previousChoice0, currentChoice0);
 
-        return new SkyworkAiTiangongApi.ChatCompletionChunk(id, object, created, model, requestId, List.of(choice));
+        return new SkyworkAiTiangongApi.ChatCompletionChunk(id, object, created, model, requestId, List.of(choice),
+                usage);
     }
 
     private SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice merge(SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice previous, SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice current) {
@@ -133,6 +135,14 @@ public class SkyworkAiTiangongStreamFunctionCallingHelper {
         return new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction(name, arguments.toString());
     }
 
+    /**
+     * @return a new accumulator merging the chunks of one window like successive
+     * {@link #merge} calls would, in linear time.
+     */
+    public ChunkAccumulator accumulator() {
+        return new ChunkAccumulator();
+    }
+
     /**
      * @param chatCompletion the ChatCompletionChunk to check
      * @return true if the ChatCompletionChunk is a streaming tool function call.
@@ -164,5 +174,217 @@ public class SkyworkAiTiangongStreamFunctionCallingHelper {
         return choice.finishReason() == SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS;
     }
 
+    /**
+     * Mutable accumulator of the chunks of one window. The tool call arguments are
+     * appended into one builder per tool call instead of being copied on every chunk,
+     * and one immutable chunk is built once the window is complete. Not thread-safe,
+     * the chunks of a window arrive sequentially.
+     */
+    public class ChunkAccumulator {
+
+        private int count;
+
+        private SkyworkAiTiangongApi.ChatCompletionChunk first;
+
+        private String id;
+
+        private String object;
+
+        private Long created;
+
+        private String model;
+
+        private String requestId;
+
+        private boolean hasChoice;
+
+        private Integer index;
+
+        private SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason;
+
+        private SkyworkAiTiangongApi.Usage usage;
+
+        private String content;
+
+        private SkyworkAiTiangongApi.ChatCompletionMessage.Role role;
+
+        private String name;
+
+        private boolean idAssigned;
+
+        private final List<ToolCallBuilder> toolCalls = new ArrayList<>(1);
+
+        private ChunkAccumulator() {
+        }
+
+        /**
+         * Add the next chunk of the window.
+         * @param chunk the chunk.
+         */
+        public void add(SkyworkAiTiangongApi.ChatCompletionChunk chunk) {
+            if (++this.count == 1) {
+                this.first = chunk;
+            }
+            this.id = (chunk.id() != null ? chunk.id() : this.id);
+            this.created = (chunk.created() != null ? chunk.created() : this.created);
+            this.model = (chunk.model() != null ? chunk.model() : this.model);
+            this.requestId = (chunk.requestId() != null ? chunk.requestId() : this.requestId);
+            this.object = (chunk.object() != null ? chunk.object() : this.object);
+            this.usage = (chunk.usage() != null ? chunk.usage() : this.usage);
+
+            var choice = (CollectionUtils.isEmpty(chunk.choices()) ? null : chunk.choices().get(0));
+            if (choice == null) {
+                return;
+            }
+            if (!this.hasChoice) {
+                addFirstChoice(choice);
+                return;
+            }
+            this.finishReason = (choice.finishReason() != null ? choice.finishReason() : this.finishReason);
+            this.index = (choice.index() != null ? choice.index() : this.index);
+
+            var delta = choice.delta();
+            if (delta == null) {
+                return;
+            }
+            // the latest content wins, as in merge
+            this.content = (delta.content() != null ? delta.content() : (this.content != null ? this.content : ""));
+            this.role = (delta.role() != null ? delta.role()
+                    : (this.role != null ? this.role : SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT));
+            this.name = (delta.name() != null ? delta.name() : this.name);
+
+            if (CollectionUtils.isEmpty(delta.toolCalls())) {
+                return;
+            }
+            if (delta.toolCalls().size() > 1) {
+                throw new IllegalStateException("Currently only one tool call is supported per message!");
+            }
+            var toolCall = delta.toolCalls().get(0);
+            if (toolCall.id() != null || this.toolCalls.isEmpty()) {
+                // a new tool call starts
+                this.toolCalls.add(new ToolCallBuilder(toolCall));
+            }
+            else {
+                this.toolCalls.get(this.toolCalls.size() - 1).append(toolCall);
+            }
+        }
+
+        private void addFirstChoice(SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice choice) {
+            this.hasChoice = true;
+            this.index = choice.index();
+            this.finishReason = choice.finishReason();
+            var delta = choice.delta();
+            if (delta == null) {
+                return;
+            }
+            this.content = delta.content();
+            this.role = delta.role();
+            this.name = delta.name();
+            if (delta.toolCalls() == null) {
+                return;
+            }
+            boolean withId = delta.toolCalls().stream().anyMatch(toolCall -> toolCall.id() != null);
+            String newId = (withId ? null : UUID.randomUUID().toString());
+            for (var toolCall : delta.toolCalls()) {
+                var builder = new ToolCallBuilder(toolCall);
+                if (newId != null) {
+                    builder.id = newId;
+                    builder.type = "function";
+                }
+                this.toolCalls.add(builder);
+            }
+            if (newId != null) {
+                this.idAssigned = true;
+                this.role = (this.role != null ? this.role : SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT);
+            }
+        }
+
+        /**
+         * @return the merged chunk of the window.
+         */
+        public SkyworkAiTiangongApi.ChatCompletionChunk toChunk() {
+            if (this.count == 0) {
+                return new SkyworkAiTiangongApi.ChatCompletionChunk(null, null, null, null, null, null);
+            }
+            if (this.count == 1) {
+                // a window of a single chunk, i.e. any text chunk, passes through as is
+                if (!this.idAssigned && this.first.choices() != null && this.first.choices().size() == 1) {
+                    return this.first;
+                }
+                return merge(new SkyworkAiTiangongApi.ChatCompletionChunk(null, null, null, null, null, null), this.first);
+            }
+            if (!this.hasChoice) {
+                return new SkyworkAiTiangongApi.ChatCompletionChunk(this.id, this.object, this.created, this.model,
+                        this.requestId, List.of(), this.usage);
+            }
+            List<SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall> toolCalls = new ArrayList<>(this.toolCalls.size());
+            for (ToolCallBuilder toolCall : this.toolCalls) {
+                toolCalls.add(toolCall.build());
+            }
+            var message = new SkyworkAiTiangongApi.ChatCompletionMessage(this.content, this.role, this.name, toolCalls);
+            return new SkyworkAiTiangongApi.ChatCompletionChunk(this.id, this.object, this.created, this.model,
+                    this.requestId,
+                    List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(this.index, message, this.finishReason)),
+                    this.usage);
+        }
+
+    }
+
+    /**
+     * One tool call being streamed, its arguments appended as they arrive.
+     */
+    private static final class ToolCallBuilder {
+
+        private String id;
+
+        private String type;
+
+        private boolean hasFunction;
+
+        private String functionName;
+
+        private StringBuilder arguments;
+
+        private ToolCallBuilder(SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall) {
+            this.id = toolCall.id();
+            this.type = toolCall.type();
+            setFunction(toolCall.function());
+        }
+
+        private void setFunction(SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction function) {
+            this.hasFunction = (function != null);
+            this.functionName = (function != null ? function.name() : null);
+            this.arguments = (function != null && function.arguments() != null ? new StringBuilder(function.arguments())
+                    : null);
+        }
+
+        private void append(SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall) {
+            this.id = (toolCall.id() != null ? toolCall.id() : this.id);
+            this.type = (toolCall.type() != null ? toolCall.type() : this.type);
+            var function = toolCall.function();
+            if (!this.hasFunction) {
+                setFunction(function);
+                return;
+            }
+            if (function == null) {
+                return;
+            }
+            this.functionName = (function.name() != null ? function.name() : this.functionName);
+            if (this.arguments == null) {
+                this.arguments = new StringBuilder();
+            }
+            if (function.arguments() != null) {
+                this.arguments.append(function.arguments());
+            }
+        }
+
+        private SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall build() {
+            var function = (this.hasFunction ? new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction(
+                    this.functionName, (this.arguments != null ? this.arguments.toString() : null)) : null);
+            return new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall(this.id, this.type, function);
+        }
+
+    }
+
 }
 // ---
@@ -0,0 +1,93 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Preflight check of a request against the context window of the model.
+ * <p>
+ * The prompt tokens, estimated by a {@link SkyworkAiTiangongTokenEstimator}, plus
+ * {@code max_tokens} must fit into the context window. A request that does not fit is
+ * rejected with a {@link SkyworkAiTiangongTokenBudgetExceededException} instead of failing
+ * upstream or having its completion cut short. With trimming enabled, the oldest
+ * non-system messages are dropped first, together with the tool results answering them;
+ * the last message is always kept, and the request is rejected if it still does not fit.
+ */
+public class SkyworkAiTiangongTokenBudget {
+
+    private final int contextWindow;
+
+    private final boolean trimMessages;
+
+    private final SkyworkAiTiangongTokenEstimator estimator;
+
+    public SkyworkAiTiangongTokenBudget(int contextWindow, boolean trimMessages) {
+        this(contextWindow, trimMessages, new SkyworkAiTiangongTokenEstimator());
+    }
+
+    public SkyworkAiTiangongTokenBudget(int contextWindow, boolean trimMessages,
+                                        SkyworkAiTiangongTokenEstimator estimator) {
+        Assert.isTrue(contextWindow > 0, "Context window must be positive");
+        Assert.notNull(estimator, "Token estimator must not be null");
+        this.contextWindow = contextWindow;
+        this.trimMessages = trimMessages;
+        this.estimator = estimator;
+    }
+
+    /**
+     * Check the request against the context window.
+     * @param request the chat completion request.
+     * @return the request, or a copy without its oldest messages if it had to be trimmed.
+     * @throws SkyworkAiTiangongTokenBudgetExceededException if the request does not fit.
+     */
+    public SkyworkAiTiangongApi.ChatCompletionRequest enforce(SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        int completionTokens = (request.maxTokens() != null ? request.maxTokens() : 0);
+        int tokens = this.estimator.estimatePrompt(request) + completionTokens;
+        if (tokens <= this.contextWindow) {
+            return request;
+        }
+        if (!this.trimMessages || request.messages() == null) {
+            throw new SkyworkAiTiangongTokenBudgetExceededException(tokens, this.contextWindow);
+        }
+
+        List<SkyworkAiTiangongApi.ChatCompletionMessage> messages = request.messages();
+        boolean[] dropped = new boolean[messages.size()];
+        int last = messages.size() - 1;
+        for (int i = 0; i < last && tokens > this.contextWindow; i++) {
+            if (messages.get(i).role() == SkyworkAiTiangongApi.ChatCompletionMessage.Role.SYSTEM) {
+                continue;
+            }
+            dropped[i] = true;
+            tokens -= this.estimator.estimateMessage(messages.get(i));
+            // tool results are meaningless without the tool calls they answer
+            while (i + 1 < last && messages.get(i + 1).role() == SkyworkAiTiangongApi.ChatCompletionMessage.Role.TOOL) {
+                dropped[++i] = true;
+                tokens -= this.estimator.estimateMessage(messages.get(i));
+            }
+        }
+        if (tokens > this.contextWindow) {
+            throw new SkyworkAiTiangongTokenBudgetExceededException(tokens, this.contextWindow);
+        }
+
+        List<SkyworkAiTiangongApi.ChatCompletionMessage> kept = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            if (!dropped[i]) {
+                kept.add(messages.get(i));
+            }
+        }
+        return new SkyworkAiTiangongApi.ChatCompletionRequest(request.requestId(), request.model(), kept,
+                request.doSample(), request.stream(), request.temperature(), request.topP(), request.maxTokens(),
+                request.stop(), request.tools(), request.toolChoice(), request.user());
+    }
+
+    public int getContextWindow() {
+        return this.contextWindow;
+    }
+
+    public boolean isTrimMessages() {
+        return this.trimMessages;
+    }
+
+}
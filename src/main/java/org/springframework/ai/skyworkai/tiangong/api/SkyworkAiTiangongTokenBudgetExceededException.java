@@ -0,0 +1,31 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.springframework.ai.retry.NonTransientAiException;
+
+/**
+ * Thrown when the estimated prompt and completion tokens of a request exceed the context
+ * window of the model, before the request is sent. Non-transient so that it is not fed
+ * back into the retry template.
+ */
+public class SkyworkAiTiangongTokenBudgetExceededException extends NonTransientAiException {
+
+    private final int estimatedTokens;
+
+    private final int contextWindow;
+
+    public SkyworkAiTiangongTokenBudgetExceededException(int estimatedTokens, int contextWindow) {
+        super("Estimated " + estimatedTokens + " prompt and completion tokens exceed the context window of "
+                + contextWindow + " tokens");
+        this.estimatedTokens = estimatedTokens;
+        this.contextWindow = contextWindow;
+    }
+
+    public int getEstimatedTokens() {
+        return this.estimatedTokens;
+    }
+
+    public int getContextWindow() {
+        return this.contextWindow;
+    }
+
+}
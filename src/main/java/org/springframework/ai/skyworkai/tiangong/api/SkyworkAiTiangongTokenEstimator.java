@@ -0,0 +1,164 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline estimate of the prompt tokens of a chat completion request, without the
+ * tokenizer of the model.
+ * <p>
+ * CJK ideographs, kana and hangul count as one token each, the vocabulary of SkyChat
+ * seldom merges them. Latin letters, digits and whitespace count three characters per
+ * token, where English text averages about four, and punctuation and other scripts half
+ * a token each. Every message adds the tokens of its role and separators, and tool
+ * definitions the tokens of their name, description and JSON schema. For typical text
+ * the estimate errs on the high side, so that it is safe to check a request against the
+ * context window before sending it; the exact count is only known from the reported
+ * {@link SkyworkAiTiangongApi.Usage}.
+ */
+public class SkyworkAiTiangongTokenEstimator {
+
+    /**
+     * Tokens priming the reply of the assistant.
+     */
+    private static final int REQUEST_OVERHEAD = 3;
+
+    /**
+     * Tokens of the role and separators of one message.
+     */
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    /**
+     * Tokens of the structure of one tool definition or schema entry.
+     */
+    private static final int ENTRY_OVERHEAD = 1;
+
+    /**
+     * Tokens of one ASCII letter, digit or whitespace character.
+     */
+    private static final double ASCII_WORD_CHAR_TOKENS = 1.0 / 3;
+
+    /**
+     * Estimate the prompt tokens of a request: its messages and tools, without the
+     * completion budget.
+     * @param request the chat completion request.
+     * @return the estimated token count.
+     */
+    public int estimatePrompt(SkyworkAiTiangongApi.ChatCompletionRequest request) {
+        return REQUEST_OVERHEAD + estimateMessages(request.messages()) + estimateTools(request.tools());
+    }
+
+    /**
+     * @param messages the messages, may be {@code null}.
+     * @return the estimated tokens of the messages.
+     */
+    public int estimateMessages(List<SkyworkAiTiangongApi.ChatCompletionMessage> messages) {
+        if (messages == null) {
+            return 0;
+        }
+        int tokens = 0;
+        for (SkyworkAiTiangongApi.ChatCompletionMessage message : messages) {
+            tokens += estimateMessage(message);
+        }
+        return tokens;
+    }
+
+    /**
+     * @param message the message.
+     * @return the estimated tokens of the message, including its role and tool calls.
+     */
+    public int estimateMessage(SkyworkAiTiangongApi.ChatCompletionMessage message) {
+        int tokens = MESSAGE_OVERHEAD + estimateText(message.content()) + estimateText(message.name());
+        if (message.toolCalls() != null) {
+            for (SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall : message.toolCalls()) {
+                tokens += ENTRY_OVERHEAD + estimateText(toolCall.id());
+                if (toolCall.function() != null) {
+                    tokens += estimateText(toolCall.function().name()) + estimateText(toolCall.function().arguments());
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @param tools the tool definitions, may be {@code null}.
+     * @return the estimated tokens of the tool definitions.
+     */
+    public int estimateTools(List<SkyworkAiTiangongApi.FunctionTool> tools) {
+        if (tools == null) {
+            return 0;
+        }
+        if (tools instanceof SkyworkAiTiangongFunctionToolCache.EncodedFunctionTools encodedTools) {
+            // estimated once per tool when it was cached
+            return encodedTools.estimatedTokens();
+        }
+        int tokens = 0;
+        for (SkyworkAiTiangongApi.FunctionTool tool : tools) {
+            tokens += estimateTool(tool);
+        }
+        return tokens;
+    }
+
+    /**
+     * @param tool the tool definition.
+     * @return the estimated tokens of the tool definition.
+     */
+    public int estimateTool(SkyworkAiTiangongApi.FunctionTool tool) {
+        int tokens = ENTRY_OVERHEAD;
+        if (tool.function() != null) {
+            tokens += estimateText(tool.function().name()) + estimateText(tool.function().description())
+                    + estimateValue(tool.function().parameters());
+        }
+        return tokens;
+    }
+
+    /**
+     * @param text the text, may be {@code null}.
+     * @return the estimated tokens of the text.
+     */
+    public int estimateText(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        double tokens = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 0x80) {
+                tokens += (Character.isLetterOrDigit(codePoint) || Character.isWhitespace(codePoint)
+                        ? ASCII_WORD_CHAR_TOKENS : 0.5);
+            }
+            else if (codePoint >= 0x2E80) {
+                // CJK, kana, hangul, fullwidth forms and everything outside the BMP
+                tokens += 1;
+            }
+            else {
+                tokens += 0.5;
+            }
+        }
+        return (int) Math.ceil(tokens);
+    }
+
+    private int estimateValue(Object value) {
+        if (value instanceof String text) {
+            return estimateText(text);
+        }
+        if (value instanceof Map<?, ?> map) {
+            int tokens = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                tokens += ENTRY_OVERHEAD + estimateText(String.valueOf(entry.getKey())) + estimateValue(entry.getValue());
+            }
+            return tokens;
+        }
+        if (value instanceof Collection<?> collection) {
+            int tokens = 0;
+            for (Object element : collection) {
+                tokens += ENTRY_OVERHEAD + estimateValue(element);
+            }
+            return tokens;
+        }
+        return (value != null ? estimateText(value.toString()) : 0);
+    }
+
+}
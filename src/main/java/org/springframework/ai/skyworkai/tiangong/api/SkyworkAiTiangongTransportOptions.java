@@ -0,0 +1,210 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings of the Reactor Netty transport used to talk to
+ * the Skywork AI Tiangong API.
+ */
+public class SkyworkAiTiangongTransportOptions {
+
+    /**
+     * Maximum number of pooled connections to the API host.
+     */
+    private int maxConnections = 100;
+
+    /**
+     * Maximum number of requests waiting for a pooled connection, -1 for no limit.
+     */
+    private int pendingAcquireMaxCount = 1000;
+
+    /**
+     * Maximum time a request waits for a pooled connection.
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+    /**
+     * Time after which an idle pooled connection is closed. Keep it below the server
+     * keep-alive timeout so that connections are not reused after the server closed
+     * them.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * Maximum life time of a pooled connection, unlimited when not set.
+     */
+    private Duration maxLifeTime;
+
+    /**
+     * Interval of the background eviction of idle and expired connections, disabled
+     * when not set.
+     */
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    /**
+     * Enable HTTP keep-alive.
+     */
+    private boolean keepAlive = true;
+
+    /**
+     * Negotiate HTTP/2 (falling back to HTTP/1.1) so that concurrent requests are
+     * multiplexed over fewer connections.
+     */
+    private boolean http2 = false;
+
+    /**
+     * TCP connect timeout.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Maximum time allowed between two network reads of a response. For streaming
+     * responses this bounds the gap between two chunks.
+     */
+    private Duration responseTimeout = Duration.ofSeconds(60);
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private final SkyworkAiTiangongTransportOptions options = new SkyworkAiTiangongTransportOptions();
+
+        public Builder withMaxConnections(int maxConnections) {
+            this.options.setMaxConnections(maxConnections);
+            return this;
+        }
+
+        public Builder withPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.options.setPendingAcquireMaxCount(pendingAcquireMaxCount);
+            return this;
+        }
+
+        public Builder withPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.options.setPendingAcquireTimeout(pendingAcquireTimeout);
+            return this;
+        }
+
+        public Builder withMaxIdleTime(Duration maxIdleTime) {
+            this.options.setMaxIdleTime(maxIdleTime);
+            return this;
+        }
+
+        public Builder withMaxLifeTime(Duration maxLifeTime) {
+            this.options.setMaxLifeTime(maxLifeTime);
+            return this;
+        }
+
+        public Builder withEvictInBackground(Duration evictInBackground) {
+            this.options.setEvictInBackground(evictInBackground);
+            return this;
+        }
+
+        public Builder withKeepAlive(boolean keepAlive) {
+            this.options.setKeepAlive(keepAlive);
+            return this;
+        }
+
+        public Builder withHttp2(boolean http2) {
+            this.options.setHttp2(http2);
+            return this;
+        }
+
+        public Builder withConnectTimeout(Duration connectTimeout) {
+            this.options.setConnectTimeout(connectTimeout);
+            return this;
+        }
+
+        public Builder withResponseTimeout(Duration responseTimeout) {
+            this.options.setResponseTimeout(responseTimeout);
+            return this;
+        }
+
+        public SkyworkAiTiangongTransportOptions build() {
+            return this.options;
+        }
+
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    }
+
+    public Duration getPendingAcquireTimeout() {
+        return pendingAcquireTimeout;
+    }
+
+    public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+    }
+
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(Duration maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public Duration getMaxLifeTime() {
+        return maxLifeTime;
+    }
+
+    public void setMaxLifeTime(Duration maxLifeTime) {
+        this.maxLifeTime = maxLifeTime;
+    }
+
+    public Duration getEvictInBackground() {
+        return evictInBackground;
+    }
+
+    public void setEvictInBackground(Duration evictInBackground) {
+        this.evictInBackground = evictInBackground;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    public void setResponseTimeout(Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+    }
+
+}
@@ -1,5 +1,11 @@
 package org.springframework.ai.skyworkai.tiangong.autoconfigure;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.autoconfigure.mistralai.MistralAiEmbeddingProperties;
 import org.springframework.ai.autoconfigure.retry.SpringAiRetryAutoConfiguration;
 import org.springframework.ai.model.function.FunctionCallback;
@@ -7,46 +13,138 @@ import org.springframework.ai.model.function.FunctionCallbackContext;
 import org.springframework.ai.skyworkai.tiangong.SkyworkAiTiangongChatClient;
 import org.springframework.ai.skyworkai.tiangong.SkyworkAiTiangongImageClient;
 import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongChatCompletionCache;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongCircuitBreaker;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongClientMetrics;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongConcurrencyLimiter;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongHttpTransport;
 import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongImageApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongLoadBalancedApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongMicrometerClientMetrics;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongRateLimiter;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongRequestHedger;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongTokenBudget;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.client.RestClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * {@link AutoConfiguration Auto-configuration} for Skywork AI Tiangong Chat Client.
  */
-@AutoConfiguration(after = { RestClientAutoConfiguration.class, SpringAiRetryAutoConfiguration.class })
+@AutoConfiguration(after = { RestClientAutoConfiguration.class, WebClientAutoConfiguration.class, SpringAiRetryAutoConfiguration.class },
+        afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 @EnableConfigurationProperties({ SkyworkAiTiangongChatProperties.class, SkyworkAiTiangongConnectionProperties.class, SkyworkAiTiangongImageProperties.class })
 @ConditionalOnClass(SkyworkAiTiangongApi.class)
 public class SkyworkAiTiangongAutoConfiguration {
 
+    @Bean
+    @ConditionalOnMissingBean
+    public SkyworkAiTiangongHttpTransport skyworkAiTiangongHttpTransport(SkyworkAiTiangongConnectionProperties connectionProperties) {
+        return new SkyworkAiTiangongHttpTransport(connectionProperties.getTransport());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public SkyworkAiTiangongApi skyworkAiTiangongApi(SkyworkAiTiangongConnectionProperties connectionProperties,
-                                                     SkyworkAiTiangongImageProperties chatProperties,
+                                                     SkyworkAiTiangongChatProperties chatProperties,
+                                                     SkyworkAiTiangongHttpTransport httpTransport,
                                                      RestClient.Builder restClientBuilder,
-                                                     ResponseErrorHandler responseErrorHandler) {
+                                                     ObjectProvider<WebClient.Builder> webClientBuilderProvider,
+                                                     ResponseErrorHandler responseErrorHandler,
+                                                     ObjectProvider<SkyworkAiTiangongClientMetrics> clientMetricsProvider,
+                                                     ObjectProvider<ObservationRegistry> observationRegistryProvider) {
 
         String baseUrl = StringUtils.hasText(chatProperties.getBaseUrl()) ? chatProperties.getBaseUrl() : connectionProperties.getBaseUrl();
         String apiKey = StringUtils.hasText(chatProperties.getApiKey()) ? chatProperties.getApiKey() : connectionProperties.getApiKey();
         Assert.hasText(baseUrl, "Skywork AI Tiangong base URL must be set");
+
+        WebClient.Builder webClientBuilder = webClientBuilderProvider.getIfAvailable(WebClient::builder)
+                .clientConnector(httpTransport.getClientConnector());
+        restClientBuilder.requestFactory(httpTransport.getRequestFactory());
+        var clientMetrics = clientMetricsProvider.getIfAvailable(() -> SkyworkAiTiangongClientMetrics.NOOP);
+        var observationRegistry = observationRegistryProvider.getIfUnique(() -> ObservationRegistry.NOOP);
+
+        SkyworkAiTiangongApi skyworkAiTiangongApi;
+        var loadBalancing = connectionProperties.getLoadBalancing();
+        if (loadBalancing.getMembers().isEmpty()) {
+            skyworkAiTiangongApi = createApi("chat", baseUrl, apiKey, connectionProperties, restClientBuilder,
+                    webClientBuilder, responseErrorHandler, clientMetrics, observationRegistry);
+        }
+        else {
+            List<SkyworkAiTiangongLoadBalancedApi.Member> members = new ArrayList<>();
+            for (int i = 0; i < loadBalancing.getMembers().size(); i++) {
+                var member = loadBalancing.getMembers().get(i);
+                String memberName = StringUtils.hasText(member.getName()) ? member.getName() : String.valueOf(i);
+                String memberBaseUrl = StringUtils.hasText(member.getBaseUrl()) ? member.getBaseUrl() : baseUrl;
+                String memberApiKey = StringUtils.hasText(member.getApiKey()) ? member.getApiKey() : apiKey;
+                // every member has its own clients and limits, the builders are shared templates
+                members.add(new SkyworkAiTiangongLoadBalancedApi.Member(memberName, createApi("chat-" + memberName,
+                        memberBaseUrl, memberApiKey, connectionProperties, restClientBuilder.clone(),
+                        webClientBuilder.clone(), responseErrorHandler, clientMetrics, observationRegistry)));
+            }
+            skyworkAiTiangongApi = new SkyworkAiTiangongLoadBalancedApi(members, loadBalancing.getStrategy(),
+                    loadBalancing.getFailureThreshold(), loadBalancing.getEjectionDuration());
+        }
+        skyworkAiTiangongApi.setRequestCoalescing(chatProperties.getCoalescing().isEnabled());
+        skyworkAiTiangongApi.setStreamCoalescing(chatProperties.getCoalescing().isStream());
+        skyworkAiTiangongApi.setStreamJoinLimit(chatProperties.getCoalescing().getStreamJoinLimit());
+        return skyworkAiTiangongApi;
+    }
+
+    private static SkyworkAiTiangongApi createApi(String name, String baseUrl, String apiKey,
+                                                  SkyworkAiTiangongConnectionProperties connectionProperties,
+                                                  RestClient.Builder restClientBuilder, WebClient.Builder webClientBuilder,
+                                                  ResponseErrorHandler responseErrorHandler,
+                                                  SkyworkAiTiangongClientMetrics clientMetrics,
+                                                  ObservationRegistry observationRegistry) {
         Assert.hasText(apiKey, "Skywork AI Tiangong API key must be set");
+        var skyworkAiTiangongApi = new SkyworkAiTiangongApi(baseUrl, apiKey, restClientBuilder, webClientBuilder,
+                responseErrorHandler);
+        skyworkAiTiangongApi.setMetrics(clientMetrics);
+        skyworkAiTiangongApi.setObservationRegistry(observationRegistry);
+        var rateLimit = connectionProperties.getRateLimit();
+        if (rateLimit.isEnabled()) {
+            skyworkAiTiangongApi.setRateLimiter(new SkyworkAiTiangongRateLimiter(rateLimit.getRequestsPerSecond(),
+                    rateLimit.getTokensPerMinute(), rateLimit.getMaxWait()));
+        }
+        var concurrencyLimit = connectionProperties.getConcurrencyLimit();
+        if (concurrencyLimit.isEnabled()) {
+            skyworkAiTiangongApi.setConcurrencyLimiter(new SkyworkAiTiangongConcurrencyLimiter(
+                    concurrencyLimit.getInitialLimit(), concurrencyLimit.getMinLimit(), concurrencyLimit.getMaxLimit(),
+                    concurrencyLimit.getBackoffRatio(), concurrencyLimit.getLatencyThreshold()));
+        }
+        if (connectionProperties.getCircuitBreaker().isEnabled()) {
+            skyworkAiTiangongApi.setCircuitBreaker(createCircuitBreaker(name, connectionProperties.getCircuitBreaker()));
+        }
+        return skyworkAiTiangongApi;
+    }
 
-        return new SkyworkAiTiangongApi(baseUrl, apiKey, restClientBuilder, responseErrorHandler);
+    private static SkyworkAiTiangongCircuitBreaker createCircuitBreaker(String name,
+                                                                        SkyworkAiTiangongConnectionProperties.CircuitBreaker properties) {
+        return new SkyworkAiTiangongCircuitBreaker(name, properties.getFailureRateThreshold(),
+                properties.getSlowCallRateThreshold(), properties.getSlowCallDuration(), properties.getSlidingWindowSize(),
+                properties.getMinimumNumberOfCalls(), properties.getWaitDurationInOpenState(),
+                properties.getPermittedCallsInHalfOpenState());
     }
 
     @Bean
@@ -56,19 +154,61 @@ public class SkyworkAiTiangongAutoConfiguration {
                                                                       SkyworkAiTiangongChatProperties chatProperties,
                                                                       List<FunctionCallback> toolFunctionCallbacks,
                                                                       FunctionCallbackContext functionCallbackContext,
-                                                                      RetryTemplate retryTemplate) {
+                                                                      RetryTemplate retryTemplate,
+                                                                      ObjectProvider<SkyworkAiTiangongClientMetrics> clientMetricsProvider,
+                                                                      ObjectProvider<ObservationRegistry> observationRegistryProvider) {
         if (!CollectionUtils.isEmpty(toolFunctionCallbacks)) {
             chatProperties.getOptions().getFunctionCallbacks().addAll(toolFunctionCallbacks);
         }
-        return new SkyworkAiTiangongChatClient(skyworkAiTiangongApi, chatProperties.getOptions(), functionCallbackContext, retryTemplate);
+        var chatClient = new SkyworkAiTiangongChatClient(skyworkAiTiangongApi, chatProperties.getOptions(), functionCallbackContext, retryTemplate);
+        chatClient.setParallelToolCalls(chatProperties.getToolCalls().isParallel());
+        chatClient.setMaxParallelToolCalls(chatProperties.getToolCalls().getMaxConcurrency());
+        chatClient.setToolCallTimeout(chatProperties.getToolCalls().getTimeout());
+        clientMetricsProvider.ifAvailable(chatClient::setMetrics);
+        observationRegistryProvider.ifUnique(chatClient::setObservationRegistry);
+
+        var streamRetry = chatProperties.getStreamRetry();
+        if (streamRetry.isEnabled() && streamRetry.getMaxAttempts() > 1) {
+            chatClient.setStreamRetry(Retry.backoff(streamRetry.getMaxAttempts() - 1, streamRetry.getInitialBackoff())
+                    .maxBackoff(streamRetry.getMaxBackoff())
+                    .jitter(streamRetry.getJitter()));
+            chatClient.setStreamRetryStatusCodes(streamRetry.getStatusCodes());
+        }
+        else {
+            chatClient.setStreamRetry(null);
+        }
+
+        var cache = chatProperties.getCache();
+        if (cache.isEnabled()) {
+            chatClient.setResponseCache(new SkyworkAiTiangongChatCompletionCache(cache.getMaxSize(), cache.getTtl(),
+                    cache.isCacheSampled()));
+        }
+
+        chatClient.setBatchConcurrency(chatProperties.getBatch().getMaxConcurrency());
+        chatClient.setBatchOrdered(chatProperties.getBatch().isOrdered());
+
+        var hedging = chatProperties.getHedging();
+        if (hedging.isEnabled()) {
+            chatClient.setRequestHedger(new SkyworkAiTiangongRequestHedger(hedging.getPercentile(),
+                    hedging.getMinDelay(), hedging.getInitialDelay(), hedging.getMaxRatio()));
+        }
+
+        var tokenBudget = chatProperties.getTokenBudget();
+        if (tokenBudget.isEnabled()) {
+            chatClient.setTokenBudget(new SkyworkAiTiangongTokenBudget(tokenBudget.getContextWindow(),
+                    tokenBudget.isTrimMessages()));
+        }
+        return chatClient;
     }
 
     @Bean
     @ConditionalOnMissingBean
     public SkyworkAiTiangongImageApi skyworkAiTiangongImageApi(SkyworkAiTiangongConnectionProperties connectionProperties,
                                                                SkyworkAiTiangongImageProperties imageProperties,
+                                                               SkyworkAiTiangongHttpTransport httpTransport,
                                                                RestClient.Builder restClientBuilder,
-                                                               ResponseErrorHandler responseErrorHandler) {
+                                                               ResponseErrorHandler responseErrorHandler,
+                                                               ObjectProvider<SkyworkAiTiangongClientMetrics> clientMetricsProvider) {
 
 
         String baseUrl = StringUtils.hasText(imageProperties.getBaseUrl()) ? imageProperties.getBaseUrl() : connectionProperties.getBaseUrl();
@@ -76,7 +216,13 @@ public class SkyworkAiTiangongAutoConfiguration {
         Assert.hasText(baseUrl, "Skywork AI Tiangong base URL must be set");
         Assert.hasText(apiKey, "Skywork AI Tiangong API key must be set");
 
-        return new SkyworkAiTiangongImageApi(baseUrl, apiKey, restClientBuilder, responseErrorHandler);
+        var skyworkAiTiangongImageApi = new SkyworkAiTiangongImageApi(baseUrl, apiKey,
+                restClientBuilder.requestFactory(httpTransport.getRequestFactory()), responseErrorHandler);
+        if (connectionProperties.getCircuitBreaker().isEnabled()) {
+            skyworkAiTiangongImageApi.setCircuitBreaker(createCircuitBreaker("image", connectionProperties.getCircuitBreaker()));
+        }
+        clientMetricsProvider.ifAvailable(skyworkAiTiangongImageApi::setMetrics);
+        return skyworkAiTiangongImageApi;
     }
 
 
@@ -103,4 +249,138 @@ public class SkyworkAiTiangongAutoConfiguration {
         return manager;
     }
 
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class SkyworkAiTiangongMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnBean(MeterRegistry.class)
+        SkyworkAiTiangongClientMetrics skyworkAiTiangongClientMetrics(MeterRegistry meterRegistry) {
+            return new SkyworkAiTiangongMicrometerClientMetrics(meterRegistry);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "skyworkAiTiangongClientMeterBinder")
+        MeterBinder skyworkAiTiangongClientMeterBinder(ObjectProvider<SkyworkAiTiangongApi> skyworkAiTiangongApiProvider,
+                                                       ObjectProvider<SkyworkAiTiangongChatClient> chatClientProvider) {
+            return registry -> {
+                skyworkAiTiangongApiProvider.ifAvailable(api -> bindApi(registry, api));
+                chatClientProvider.ifAvailable(chatClient -> bindChatClient(registry, chatClient));
+            };
+        }
+
+        private static void bindChatClient(MeterRegistry registry, SkyworkAiTiangongChatClient chatClient) {
+            SkyworkAiTiangongChatCompletionCache cache = chatClient.getResponseCache();
+            if (cache != null) {
+                Gauge.builder("skywork.tiangong.cache.size", cache, SkyworkAiTiangongChatCompletionCache::size)
+                        .description("Completions in the response cache")
+                        .register(registry);
+                FunctionCounter.builder("skywork.tiangong.cache.gets", cache, SkyworkAiTiangongChatCompletionCache::getHitCount)
+                        .description("Response cache lookups")
+                        .tag("result", "hit")
+                        .register(registry);
+                FunctionCounter.builder("skywork.tiangong.cache.gets", cache, SkyworkAiTiangongChatCompletionCache::getMissCount)
+                        .description("Response cache lookups")
+                        .tag("result", "miss")
+                        .register(registry);
+                FunctionCounter.builder("skywork.tiangong.cache.evictions", cache,
+                                SkyworkAiTiangongChatCompletionCache::getEvictionCount)
+                        .description("Response cache evictions")
+                        .register(registry);
+            }
+            SkyworkAiTiangongRequestHedger hedger = chatClient.getRequestHedger();
+            if (hedger != null) {
+                FunctionCounter.builder("skywork.tiangong.hedges", hedger, SkyworkAiTiangongRequestHedger::getHedgeCount)
+                        .description("Hedged requests sent")
+                        .register(registry);
+                FunctionCounter.builder("skywork.tiangong.hedges.won", hedger, SkyworkAiTiangongRequestHedger::getHedgeWinCount)
+                        .description("Hedged requests answering first")
+                        .register(registry);
+            }
+        }
+
+        private static void bindApi(MeterRegistry registry, SkyworkAiTiangongApi api) {
+            if (api instanceof SkyworkAiTiangongLoadBalancedApi loadBalancedApi) {
+                for (SkyworkAiTiangongLoadBalancedApi.Member member : loadBalancedApi.getMembers()) {
+                    Tags tags = Tags.of("member", member.getName());
+                    bindConcurrencyLimiter(registry, member.getApi().getConcurrencyLimiter(), tags);
+                    bindCircuitBreaker(registry, member.getApi().getCircuitBreaker());
+                    bindLoadBalancerMember(registry, member, tags);
+                }
+            }
+            else {
+                bindConcurrencyLimiter(registry, api.getConcurrencyLimiter(), Tags.empty());
+                bindCircuitBreaker(registry, api.getCircuitBreaker());
+            }
+        }
+
+        private static void bindCircuitBreaker(MeterRegistry registry, SkyworkAiTiangongCircuitBreaker circuitBreaker) {
+            if (circuitBreaker == null) {
+                return;
+            }
+            for (SkyworkAiTiangongCircuitBreaker.State state : SkyworkAiTiangongCircuitBreaker.State.values()) {
+                Gauge.builder("skywork.tiangong.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                        .description("Whether the circuit breaker is in the state")
+                        .tags("name", circuitBreaker.getName(), "state", state.name().toLowerCase())
+                        .register(registry);
+            }
+            FunctionCounter.builder("skywork.tiangong.circuit.rejections", circuitBreaker,
+                            SkyworkAiTiangongCircuitBreaker::getRejectionCount)
+                    .description("Calls rejected by the circuit breaker")
+                    .tag("name", circuitBreaker.getName())
+                    .register(registry);
+        }
+
+        private static void bindConcurrencyLimiter(MeterRegistry registry, SkyworkAiTiangongConcurrencyLimiter limiter,
+                                                   Tags tags) {
+            if (limiter == null) {
+                return;
+            }
+            Gauge.builder("skywork.tiangong.concurrency.limit", limiter, SkyworkAiTiangongConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit of requests in flight")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("skywork.tiangong.concurrency.inflight", limiter, SkyworkAiTiangongConcurrencyLimiter::getInFlight)
+                    .description("Requests currently in flight")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("skywork.tiangong.concurrency.rejections", limiter,
+                            SkyworkAiTiangongConcurrencyLimiter::getRejectionCount)
+                    .description("Requests rejected by the concurrency limiter")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        private static void bindLoadBalancerMember(MeterRegistry registry, SkyworkAiTiangongLoadBalancedApi.Member member,
+                                                   Tags tags) {
+            Gauge.builder("skywork.tiangong.lb.outstanding", member, SkyworkAiTiangongLoadBalancedApi.Member::getOutstanding)
+                    .description("Requests in flight on the member")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("skywork.tiangong.lb.latency.ewma", member, SkyworkAiTiangongLoadBalancedApi.Member::getLatencyEwmaMillis)
+                    .description("Moving average latency of the member")
+                    .baseUnit("milliseconds")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("skywork.tiangong.lb.ejected", member, m -> m.isEjected() ? 1 : 0)
+                    .description("Whether the member is ejected")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("skywork.tiangong.lb.requests", member, SkyworkAiTiangongLoadBalancedApi.Member::getSuccessCount)
+                    .description("Requests completed by the member")
+                    .tags(tags.and("outcome", "success"))
+                    .register(registry);
+            FunctionCounter.builder("skywork.tiangong.lb.requests", member, SkyworkAiTiangongLoadBalancedApi.Member::getFailureCount)
+                    .description("Requests completed by the member")
+                    .tags(tags.and("outcome", "failure"))
+                    .register(registry);
+            FunctionCounter.builder("skywork.tiangong.lb.ejections", member, SkyworkAiTiangongLoadBalancedApi.Member::getEjectionCount)
+                    .description("Ejections of the member")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+    }
+
 }
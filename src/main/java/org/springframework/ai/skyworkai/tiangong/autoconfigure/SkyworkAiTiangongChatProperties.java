@@ -6,6 +6,11 @@ import org.springframework.ai.skyworkai.tiangong.util.ApiUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 @ConfigurationProperties(SkyworkAiTiangongChatProperties.CONFIG_PREFIX)
 public class SkyworkAiTiangongChatProperties extends SkyworkAiParentProperties {
 
@@ -31,6 +36,41 @@ public class SkyworkAiTiangongChatProperties extends SkyworkAiParentProperties {
             .withTopP(ApiUtils.DEFAULT_TOP_P)
             .build();
 
+    /**
+     * Function calling settings.
+     */
+    private final ToolCalls toolCalls = new ToolCalls();
+
+    /**
+     * Retry settings of streaming requests.
+     */
+    private final StreamRetry streamRetry = new StreamRetry();
+
+    /**
+     * Response cache settings of non-streaming requests.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Coalescing of identical in-flight requests.
+     */
+    private final Coalescing coalescing = new Coalescing();
+
+    /**
+     * Hedging of slow non-streaming requests.
+     */
+    private final Hedging hedging = new Hedging();
+
+    /**
+     * Batch call settings.
+     */
+    private final Batch batch = new Batch();
+
+    /**
+     * Preflight check of the requests against the context window.
+     */
+    private final TokenBudget tokenBudget = new TokenBudget();
+
     public SkyworkAiTiangongChatOptions getOptions() {
         return this.options;
     }
@@ -47,4 +87,405 @@ public class SkyworkAiTiangongChatProperties extends SkyworkAiParentProperties {
         this.enabled = enabled;
     }
 
+    public ToolCalls getToolCalls() {
+        return this.toolCalls;
+    }
+
+    public StreamRetry getStreamRetry() {
+        return this.streamRetry;
+    }
+
+    public Cache getCache() {
+        return this.cache;
+    }
+
+    public Coalescing getCoalescing() {
+        return this.coalescing;
+    }
+
+    public Hedging getHedging() {
+        return this.hedging;
+    }
+
+    public Batch getBatch() {
+        return this.batch;
+    }
+
+    public TokenBudget getTokenBudget() {
+        return this.tokenBudget;
+    }
+
+    public static class ToolCalls {
+
+        /**
+         * Run the tool calls requested in one assistant message concurrently.
+         */
+        private boolean parallel = false;
+
+        /**
+         * Maximum number of tool calls of one assistant message running at the same
+         * time.
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * Timeout of a single parallel tool call, none when not set.
+         */
+        private Duration timeout;
+
+        public boolean isParallel() {
+            return this.parallel;
+        }
+
+        public void setParallel(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public int getMaxConcurrency() {
+            return this.maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Duration getTimeout() {
+            return this.timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+    }
+
+    public static class StreamRetry {
+
+        /**
+         * Retry streaming exchanges that fail before the first chunk is received.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of attempts, including the first one.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Backoff before the first retry, doubled on every further retry.
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        /**
+         * Upper bound of the backoff.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(10);
+
+        /**
+         * Jitter factor applied to each backoff, between 0 and 1.
+         */
+        private double jitter = 0.5;
+
+        /**
+         * HTTP status codes that are retried, connection errors are always retried.
+         */
+        private Set<Integer> statusCodes = new LinkedHashSet<>(List.of(429, 500, 502, 503, 504));
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxAttempts() {
+            return this.maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return this.initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return this.maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public double getJitter() {
+            return this.jitter;
+        }
+
+        public void setJitter(double jitter) {
+            this.jitter = jitter;
+        }
+
+        public Set<Integer> getStatusCodes() {
+            return this.statusCodes;
+        }
+
+        public void setStatusCodes(Set<Integer> statusCodes) {
+            this.statusCodes = statusCodes;
+        }
+
+    }
+
+    public static class Cache {
+
+        /**
+         * Cache the responses of deterministic requests in process.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached responses.
+         */
+        private int maxSize = 1000;
+
+        /**
+         * Time to live of a cached response.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * Also cache requests with sampling enabled.
+         */
+        private boolean cacheSampled = false;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return this.maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return this.ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public boolean isCacheSampled() {
+            return this.cacheSampled;
+        }
+
+        public void setCacheSampled(boolean cacheSampled) {
+            this.cacheSampled = cacheSampled;
+        }
+
+    }
+
+    public static class Coalescing {
+
+        /**
+         * Share one upstream exchange between concurrent identical non-streaming
+         * requests.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Also share one upstream exchange between concurrent identical streaming
+         * requests.
+         */
+        private boolean stream = false;
+
+        /**
+         * Number of chunks after which a shared stream accepts no further subscribers,
+         * bounding the chunks kept for replay.
+         */
+        private int streamJoinLimit = 32;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isStream() {
+            return this.stream;
+        }
+
+        public void setStream(boolean stream) {
+            this.stream = stream;
+        }
+
+        public int getStreamJoinLimit() {
+            return this.streamJoinLimit;
+        }
+
+        public void setStreamJoinLimit(int streamJoinLimit) {
+            this.streamJoinLimit = streamJoinLimit;
+        }
+
+    }
+
+    public static class Hedging {
+
+        /**
+         * Send a second identical request when a non-streaming request is slow, the
+         * first response wins.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Percentile of the recent request latencies after which a request is hedged.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Lower bound of the hedge delay.
+         */
+        private Duration minDelay = Duration.ofMillis(50);
+
+        /**
+         * Hedge delay until enough latencies are recorded.
+         */
+        private Duration initialDelay = Duration.ofSeconds(2);
+
+        /**
+         * Maximum share of requests that are hedged.
+         */
+        private double maxRatio = 0.1;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return this.percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return this.minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getInitialDelay() {
+            return this.initialDelay;
+        }
+
+        public void setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+        }
+
+        public double getMaxRatio() {
+            return this.maxRatio;
+        }
+
+        public void setMaxRatio(double maxRatio) {
+            this.maxRatio = maxRatio;
+        }
+
+    }
+
+    public static class Batch {
+
+        /**
+         * Maximum number of batch prompts in flight at the same time.
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * Emit batch results in the order of the prompts instead of as they complete.
+         */
+        private boolean ordered = false;
+
+        public int getMaxConcurrency() {
+            return this.maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public boolean isOrdered() {
+            return this.ordered;
+        }
+
+        public void setOrdered(boolean ordered) {
+            this.ordered = ordered;
+        }
+
+    }
+
+    public static class TokenBudget {
+
+        /**
+         * Check the estimated prompt tokens plus max tokens of every request against the
+         * context window before sending it.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Context window of the model, in tokens.
+         */
+        private int contextWindow = ApiUtils.DEFAULT_CONTEXT_WINDOW;
+
+        /**
+         * Drop the oldest non-system messages of a request that does not fit, instead of
+         * rejecting it.
+         */
+        private boolean trimMessages = false;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getContextWindow() {
+            return this.contextWindow;
+        }
+
+        public void setContextWindow(int contextWindow) {
+            this.contextWindow = contextWindow;
+        }
+
+        public boolean isTrimMessages() {
+            return this.trimMessages;
+        }
+
+        public void setTrimMessages(boolean trimMessages) {
+            this.trimMessages = trimMessages;
+        }
+
+    }
+
 }
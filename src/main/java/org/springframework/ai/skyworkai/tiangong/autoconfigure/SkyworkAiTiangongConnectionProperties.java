@@ -1,10 +1,413 @@
 package org.springframework.ai.skyworkai.tiangong.autoconfigure;
 
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongLoadBalancedApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongTransportOptions;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @ConfigurationProperties(SkyworkAiTiangongConnectionProperties.CONFIG_PREFIX)
 public class SkyworkAiTiangongConnectionProperties extends SkyworkAiParentProperties {
 
     public static final String CONFIG_PREFIX = "spring.ai.sensetimeai.sensenova";
 
+    /**
+     * Connection pool, protocol and timeout settings of the HTTP transport.
+     */
+    @NestedConfigurationProperty
+    private SkyworkAiTiangongTransportOptions transport = SkyworkAiTiangongTransportOptions.builder().build();
+
+    /**
+     * Client-side rate limit of the api key.
+     */
+    private final RateLimit rateLimit = new RateLimit();
+
+    /**
+     * Adaptive limit of the requests in flight.
+     */
+    private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    /**
+     * Pool of api keys and endpoints to spread requests over.
+     */
+    private final LoadBalancing loadBalancing = new LoadBalancing();
+
+    /**
+     * Circuit breakers of the chat and image endpoints.
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public SkyworkAiTiangongTransportOptions getTransport() {
+        return this.transport;
+    }
+
+    public void setTransport(SkyworkAiTiangongTransportOptions transport) {
+        this.transport = transport;
+    }
+
+    public RateLimit getRateLimit() {
+        return this.rateLimit;
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return this.concurrencyLimit;
+    }
+
+    public LoadBalancing getLoadBalancing() {
+        return this.loadBalancing;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Throttle requests on the client side before they reach the server.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Sustained requests per second.
+         */
+        private double requestsPerSecond = 10;
+
+        /**
+         * Sustained tokens per minute, prompt estimate plus max tokens.
+         */
+        private double tokensPerMinute = 100000;
+
+        /**
+         * Maximum time a request is queued for budget, 0 to fail fast.
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRequestsPerSecond() {
+            return this.requestsPerSecond;
+        }
+
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public double getTokensPerMinute() {
+            return this.tokensPerMinute;
+        }
+
+        public void setTokensPerMinute(double tokensPerMinute) {
+            this.tokensPerMinute = tokensPerMinute;
+        }
+
+        public Duration getMaxWait() {
+            return this.maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+    }
+
+    public static class ConcurrencyLimit {
+
+        /**
+         * Adapt the number of requests in flight to observed latency and errors.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Limit to start with.
+         */
+        private int initialLimit = 20;
+
+        /**
+         * Lower bound of the limit.
+         */
+        private int minLimit = 1;
+
+        /**
+         * Upper bound of the limit.
+         */
+        private int maxLimit = 200;
+
+        /**
+         * Factor applied to the limit on an overload signal.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * Latency above which a successful request is treated as an overload signal,
+         * time to first chunk for streams. Not set to ignore latency.
+         */
+        private Duration latencyThreshold;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return this.initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return this.minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return this.maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return this.backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getLatencyThreshold() {
+            return this.latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+    }
+
+    public static class LoadBalancing {
+
+        /**
+         * Members of the pool. When empty, the single base URL and api key are used.
+         */
+        private List<Member> members = new ArrayList<>();
+
+        /**
+         * How the member of the next request is chosen.
+         */
+        private SkyworkAiTiangongLoadBalancedApi.Strategy strategy = SkyworkAiTiangongLoadBalancedApi.Strategy.LEAST_OUTSTANDING;
+
+        /**
+         * Consecutive overload failures after which a member is ejected.
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * How long an ejected member gets no traffic.
+         */
+        private Duration ejectionDuration = Duration.ofSeconds(30);
+
+        public List<Member> getMembers() {
+            return this.members;
+        }
+
+        public void setMembers(List<Member> members) {
+            this.members = members;
+        }
+
+        public SkyworkAiTiangongLoadBalancedApi.Strategy getStrategy() {
+            return this.strategy;
+        }
+
+        public void setStrategy(SkyworkAiTiangongLoadBalancedApi.Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public int getFailureThreshold() {
+            return this.failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getEjectionDuration() {
+            return this.ejectionDuration;
+        }
+
+        public void setEjectionDuration(Duration ejectionDuration) {
+            this.ejectionDuration = ejectionDuration;
+        }
+
+        public static class Member {
+
+            /**
+             * Name of the member in logs and metrics, defaults to its index.
+             */
+            private String name;
+
+            /**
+             * Base URL of the member, defaults to the connection base URL.
+             */
+            private String baseUrl;
+
+            /**
+             * Api key of the member, defaults to the connection api key.
+             */
+            private String apiKey;
+
+            public String getName() {
+                return this.name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public String getBaseUrl() {
+                return this.baseUrl;
+            }
+
+            public void setBaseUrl(String baseUrl) {
+                this.baseUrl = baseUrl;
+            }
+
+            public String getApiKey() {
+                return this.apiKey;
+            }
+
+            public void setApiKey(String apiKey) {
+                this.apiKey = apiKey;
+            }
+
+        }
+
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Fail fast while an endpoint is failing instead of waiting out timeouts and retries.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Share of failed calls (429, 5xx, I/O errors, timeouts) that opens the circuit.
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * Share of slow calls that opens the circuit.
+         */
+        private double slowCallRateThreshold = 1.0;
+
+        /**
+         * Latency from which a call counts as slow, time to first chunk for streams.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(60);
+
+        /**
+         * Number of recent calls the rates are computed over.
+         */
+        private int slidingWindowSize = 100;
+
+        /**
+         * Calls to record before the rates are evaluated.
+         */
+        private int minimumNumberOfCalls = 20;
+
+        /**
+         * How long the circuit stays open before probe calls are let through.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+
+        /**
+         * Probe calls deciding whether the circuit closes again.
+         */
+        private int permittedCallsInHalfOpenState = 5;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getFailureRateThreshold() {
+            return this.failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public double getSlowCallRateThreshold() {
+            return this.slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getSlowCallDuration() {
+            return this.slowCallDuration;
+        }
+
+        public void setSlowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public int getSlidingWindowSize() {
+            return this.slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumNumberOfCalls() {
+            return this.minimumNumberOfCalls;
+        }
+
+        public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+        }
+
+        public Duration getWaitDurationInOpenState() {
+            return this.waitDurationInOpenState;
+        }
+
+        public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return this.permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+
+    }
+
 }
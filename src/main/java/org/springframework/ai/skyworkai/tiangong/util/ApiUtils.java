@@ -10,6 +10,8 @@ public class ApiUtils {
 
     public static final Integer DEFAULT_MAX_TOKENS = 1024;
 
+    public static final int DEFAULT_CONTEXT_WINDOW = 8192;
+
     public static final Float DEFAULT_TEMPERATURE = 0.95f;
 
     public static final Float DEFAULT_TOP_P = 0.7f;
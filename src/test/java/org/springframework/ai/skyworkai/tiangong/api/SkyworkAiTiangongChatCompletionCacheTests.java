@@ -0,0 +1,111 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the keys, expiry and eviction of {@link SkyworkAiTiangongChatCompletionCache}.
+ */
+class SkyworkAiTiangongChatCompletionCacheTests {
+
+    private final SkyworkAiTiangongChatCompletionCache cache = new SkyworkAiTiangongChatCompletionCache(2,
+            Duration.ofMinutes(5));
+
+    @Test
+    void returnsTheCompletionOfAnIdenticalRequest() {
+        String key = this.cache.keyOf(request("1", "Hello", 0f));
+        this.cache.put(key, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP));
+
+        // the request id is not part of the key
+        var cached = this.cache.get(this.cache.keyOf(request("2", "Hello", 0f)));
+        assertThat(cached).isNotNull();
+        assertThat(cached.choices().get(0).message().content()).isEqualTo("Hi");
+        assertThat(this.cache.get(this.cache.keyOf(request("3", "Bye", 0f)))).isNull();
+        assertThat(this.cache.getHitCount()).isEqualTo(1);
+        assertThat(this.cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bypassesSampledRequests() {
+        assertThat(this.cache.keyOf(request("1", "Hello", 0.8f))).isNull();
+        assertThat(this.cache.keyOf(request("1", "Hello", null))).isNull();
+
+        var sampledCache = new SkyworkAiTiangongChatCompletionCache(2, Duration.ofMinutes(5), true);
+        assertThat(sampledCache.keyOf(request("1", "Hello", 0.8f))).isNotNull();
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTimeToLive() throws InterruptedException {
+        var expiringCache = new SkyworkAiTiangongChatCompletionCache(2, Duration.ofMillis(50));
+        String key = expiringCache.keyOf(request("1", "Hello", 0f));
+        expiringCache.put(key, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP));
+        assertThat(expiringCache.get(key)).isNotNull();
+
+        Thread.sleep(100);
+        assertThat(expiringCache.get(key)).isNull();
+        assertThat(expiringCache.size()).isZero();
+        assertThat(expiringCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        String first = this.cache.keyOf(request("1", "first", 0f));
+        String second = this.cache.keyOf(request("2", "second", 0f));
+        String third = this.cache.keyOf(request("3", "third", 0f));
+        this.cache.put(first, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP));
+        this.cache.put(second, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP));
+        // reading the first entry makes the second one the least recently used
+        assertThat(this.cache.get(first)).isNotNull();
+
+        this.cache.put(third, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP));
+        assertThat(this.cache.size()).isEqualTo(2);
+        assertThat(this.cache.get(second)).isNull();
+        assertThat(this.cache.get(first)).isNotNull();
+        assertThat(this.cache.get(third)).isNotNull();
+        assertThat(this.cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void storesOnlyFinalAnswers() {
+        String key = this.cache.keyOf(request("1", "Hello", 0f));
+        this.cache.put(key, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.LENGTH));
+        this.cache.put(key, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.NETWORK_ERROR));
+        this.cache.put(key, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.SENSITIVE));
+        var toolCall = new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall("call-1", "function",
+                new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction("weather", "{}"));
+        this.cache.put(key, new SkyworkAiTiangongApi.ChatCompletion("chatcmpl-1", "chat.completion", 1L,
+                "SkyChat-MegaVerse",
+                List.of(new SkyworkAiTiangongApi.ChatCompletion.Choice(0,
+                        new SkyworkAiTiangongApi.ChatCompletionMessage(null,
+                                SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null, List.of(toolCall)),
+                        SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP)),
+                "1", null));
+        assertThat(this.cache.size()).isZero();
+
+        this.cache.put(key, completion(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP));
+        assertThat(this.cache.size()).isEqualTo(1);
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionRequest request(String requestId, String content,
+            Float temperature) {
+        return new SkyworkAiTiangongApi.ChatCompletionRequest(requestId, "SkyChat-MegaVerse",
+                List.of(new SkyworkAiTiangongApi.ChatCompletionMessage(content,
+                        SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER)),
+                temperature);
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletion completion(
+            SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason) {
+        return new SkyworkAiTiangongApi.ChatCompletion("chatcmpl-1", "chat.completion", 1L, "SkyChat-MegaVerse",
+                List.of(new SkyworkAiTiangongApi.ChatCompletion.Choice(0,
+                        new SkyworkAiTiangongApi.ChatCompletionMessage("Hi",
+                                SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT),
+                        finishReason)),
+                "1", new SkyworkAiTiangongApi.Usage(1, 2, 1));
+    }
+
+}
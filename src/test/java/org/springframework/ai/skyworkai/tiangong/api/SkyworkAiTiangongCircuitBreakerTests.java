@@ -0,0 +1,120 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the state machine of {@link SkyworkAiTiangongCircuitBreaker}.
+ */
+class SkyworkAiTiangongCircuitBreakerTests {
+
+    private static final Duration WAIT_IN_OPEN_STATE = Duration.ofMillis(50);
+
+    private final SkyworkAiTiangongCircuitBreaker breaker = new SkyworkAiTiangongCircuitBreaker("test", 0.5, 1.0,
+            Duration.ofSeconds(10), 4, 4, WAIT_IN_OPEN_STATE, 2);
+
+    @Test
+    void opensOnceTheFailureRateReachesTheThreshold() {
+        succeed(2);
+        fail(1);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.CLOSED);
+
+        fail(1);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.OPEN);
+        assertThatThrownBy(this.breaker::acquire).isInstanceOf(SkyworkAiTiangongCircuitOpenException.class);
+        assertThat(this.breaker.getRejectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void closesAfterSuccessfulProbesInHalfOpenState() throws InterruptedException {
+        open();
+        Thread.sleep(2 * WAIT_IN_OPEN_STATE.toMillis());
+
+        SkyworkAiTiangongCircuitBreaker.Permit first = this.breaker.acquire();
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.HALF_OPEN);
+        SkyworkAiTiangongCircuitBreaker.Permit second = this.breaker.acquire();
+        // every probe slot is taken
+        assertThatThrownBy(this.breaker::acquire).isInstanceOf(SkyworkAiTiangongCircuitOpenException.class);
+
+        first.onSuccess(0);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.HALF_OPEN);
+        second.onSuccess(0);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensOnFailedProbesInHalfOpenState() throws InterruptedException {
+        open();
+        Thread.sleep(2 * WAIT_IN_OPEN_STATE.toMillis());
+
+        SkyworkAiTiangongCircuitBreaker.Permit first = this.breaker.acquire();
+        SkyworkAiTiangongCircuitBreaker.Permit second = this.breaker.acquire();
+        first.onSuccess(0);
+        second.onError(new IOException("Connection reset"));
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void ignoredProbeReleasesItsSlot() throws InterruptedException {
+        open();
+        Thread.sleep(2 * WAIT_IN_OPEN_STATE.toMillis());
+
+        this.breaker.acquire().onIgnore();
+        this.breaker.acquire().onSuccess(0);
+        this.breaker.acquire().onSuccess(0);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void clientErrorsDoNotCount() {
+        for (int i = 0; i < 8; i++) {
+            this.breaker.acquire()
+                .onError(WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request", null, null,
+                        null));
+        }
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowCallsOpenTheBreaker() {
+        var slowBreaker = new SkyworkAiTiangongCircuitBreaker("slow", 1.0, 0.5, Duration.ofMillis(100), 2, 2,
+                WAIT_IN_OPEN_STATE, 1);
+        slowBreaker.acquire().onSuccess(Duration.ofMillis(10).toNanos());
+        slowBreaker.acquire().onSuccess(Duration.ofMillis(200).toNanos());
+        assertThat(slowBreaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void outcomesOfAnEarlierStateAreDropped() {
+        SkyworkAiTiangongCircuitBreaker.Permit late = this.breaker.acquire();
+        open();
+
+        late.onSuccess(0);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.OPEN);
+    }
+
+    private void open() {
+        fail(4);
+        assertThat(this.breaker.getState()).isEqualTo(SkyworkAiTiangongCircuitBreaker.State.OPEN);
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            this.breaker.acquire().onSuccess(0);
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            this.breaker.acquire().onError(new IOException("Connection reset"));
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the additive increase and multiplicative decrease of
+ * {@link SkyworkAiTiangongConcurrencyLimiter}.
+ */
+class SkyworkAiTiangongConcurrencyLimiterTests {
+
+    private static final Duration LATENCY_THRESHOLD = Duration.ofSeconds(1);
+
+    @Test
+    void rejectsRequestsBeyondTheLimit() {
+        var limiter = new SkyworkAiTiangongConcurrencyLimiter(2, 1, 10, 0.5, LATENCY_THRESHOLD);
+        SkyworkAiTiangongConcurrencyLimiter.Permit first = limiter.acquire();
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire).isInstanceOf(SkyworkAiTiangongConcurrencyLimitExceededException.class);
+        assertThat(limiter.getRejectionCount()).isEqualTo(1);
+
+        first.onIgnore();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        limiter.acquire();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void growsByOnePerWindowOfSuccesses() {
+        var limiter = new SkyworkAiTiangongConcurrencyLimiter(2, 1, 10, 0.5, LATENCY_THRESHOLD);
+
+        // 2 + 1/2 + 1/2.5 = 2.9, then only the permit started at full use counts: 2.9 + 1/2.9
+        succeedAtTheLimit(limiter);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        succeedAtTheLimit(limiter);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        for (int i = 0; i < 100; i++) {
+            succeedAtTheLimit(limiter);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void doesNotGrowWhileMostOfTheLimitIsUnused() {
+        var limiter = new SkyworkAiTiangongConcurrencyLimiter(4, 1, 10, 0.5, LATENCY_THRESHOLD);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire().onSuccess(0);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void shrinksOnOverloadAndSlowRequests() {
+        var limiter = new SkyworkAiTiangongConcurrencyLimiter(8, 1, 10, 0.5, LATENCY_THRESHOLD);
+
+        limiter.acquire().onDropped();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        limiter.acquire().onSuccess(LATENCY_THRESHOLD.toNanos() + 1);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        limiter.acquire().onDropped();
+        limiter.acquire().onDropped();
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void countsOnlyTheFirstCompletionOfAPermit() {
+        var limiter = new SkyworkAiTiangongConcurrencyLimiter(8, 1, 10, 0.5, LATENCY_THRESHOLD);
+        SkyworkAiTiangongConcurrencyLimiter.Permit permit = limiter.acquire();
+
+        permit.onIgnore();
+        permit.onDropped();
+        permit.onSuccess(0);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+
+    private static void succeedAtTheLimit(SkyworkAiTiangongConcurrencyLimiter limiter) {
+        List<SkyworkAiTiangongConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = limiter.getLimit(); i > 0; i--) {
+            permits.add(limiter.acquire());
+        }
+        permits.forEach(permit -> permit.onSuccess(0));
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.model.function.FunctionCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the caching and serialization of {@link SkyworkAiTiangongFunctionToolCache}.
+ */
+class SkyworkAiTiangongFunctionToolCacheTests {
+
+    private static final String WEATHER_SCHEMA = "{\"type\":\"object\",\"properties\":{\"city\":{\"type\":\"string\","
+            + "\"description\":\"城市名称\"}},\"required\":[\"city\"]}";
+
+    private static final String TIME_SCHEMA = "{\"type\":\"object\",\"properties\":{\"zone\":{\"type\":\"string\"}}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SkyworkAiTiangongFunctionToolCache cache = new SkyworkAiTiangongFunctionToolCache(this.objectMapper);
+
+    @Test
+    void resolvesEachCallbackOnce() {
+        FunctionCallback weather = callback("weather", "Get the weather of a city", WEATHER_SCHEMA);
+        FunctionCallback time = callback("time", "Get the current time", TIME_SCHEMA);
+
+        List<SkyworkAiTiangongApi.FunctionTool> tools = this.cache.getFunctionTools(List.of(weather, time));
+        assertThat(tools).extracting(tool -> tool.function().name()).containsExactly("weather", "time");
+        assertThat(tools.get(0).function().parameters()).containsKey("properties");
+
+        List<SkyworkAiTiangongApi.FunctionTool> again = this.cache.getFunctionTools(List.of(time, weather));
+        assertThat(again.get(0)).isSameAs(tools.get(1));
+        assertThat(again.get(1)).isSameAs(tools.get(0));
+        assertThat(this.cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuildsTheToolWhenAnotherCallbackTakesItsName() {
+        FunctionCallback weather = callback("weather", "Get the weather of a city", WEATHER_SCHEMA);
+        SkyworkAiTiangongApi.FunctionTool cached = this.cache.getFunctionTools(List.of(weather)).get(0);
+
+        FunctionCallback replacement = callback("weather", "Get the forecast of a city", WEATHER_SCHEMA);
+        SkyworkAiTiangongApi.FunctionTool rebuilt = this.cache.getFunctionTools(List.of(replacement)).get(0);
+
+        assertThat(rebuilt).isNotSameAs(cached);
+        assertThat(rebuilt.function().description()).isEqualTo("Get the forecast of a city");
+        assertThat(this.cache.size()).isEqualTo(1);
+        JsonNode expected = this.objectMapper.valueToTree(List.of(rebuilt));
+        assertThat(json(this.cache.getFunctionTools(List.of(replacement)))).isEqualTo(expected);
+    }
+
+    @Test
+    void writesTheCachedJsonAsTheToolsWouldBeSerialized() throws Exception {
+        List<SkyworkAiTiangongApi.FunctionTool> tools = this.cache.getFunctionTools(
+                List.of(callback("weather", "Get the weather of a city", WEATHER_SCHEMA),
+                        callback("time", "Get the current time", TIME_SCHEMA)));
+
+        JsonNode expected = this.objectMapper.valueToTree(new ArrayList<>(tools));
+        assertThat(json(tools)).isEqualTo(expected);
+        assertThat(json(this.cache.getFunctionTools(List.of()))).isEqualTo(this.objectMapper.createArrayNode());
+
+        // as part of a request body
+        var request = new SkyworkAiTiangongApi.ChatCompletionRequest("1", "SkyChat-MegaVerse",
+                List.of(new SkyworkAiTiangongApi.ChatCompletionMessage("What is the weather in Beijing?",
+                        SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER)),
+                null, false, null, null, null, null, tools, null, null);
+        JsonNode body = this.objectMapper.readTree(this.objectMapper.writeValueAsString(request));
+        assertThat(body.get("tools")).isEqualTo(expected);
+        assertThat(body.get("messages")).hasSize(1);
+    }
+
+    @Test
+    void carriesTheEstimatedTokensOfTheTools() {
+        var estimator = new SkyworkAiTiangongTokenEstimator();
+        List<SkyworkAiTiangongApi.FunctionTool> tools = this.cache.getFunctionTools(
+                List.of(callback("weather", "Get the weather of a city", WEATHER_SCHEMA),
+                        callback("time", "Get the current time", TIME_SCHEMA)));
+
+        assertThat(estimator.estimateTools(tools)).isPositive()
+            .isEqualTo(estimator.estimateTools(new ArrayList<>(tools)));
+    }
+
+    private JsonNode json(List<SkyworkAiTiangongApi.FunctionTool> tools) {
+        try {
+            return this.objectMapper.readTree(this.objectMapper.writeValueAsString(tools));
+        }
+        catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static FunctionCallback callback(String name, String description, String inputTypeSchema) {
+        return new FunctionCallback() {
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+
+            @Override
+            public String getInputTypeSchema() {
+                return inputTypeSchema;
+            }
+
+            @Override
+            public String call(String functionInput) {
+                return "{}";
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,209 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the member selection and ejection of {@link SkyworkAiTiangongLoadBalancedApi}.
+ */
+class SkyworkAiTiangongLoadBalancedApiTests {
+
+    private static final SkyworkAiTiangongApi.ChatCompletionRequest REQUEST = new SkyworkAiTiangongApi.ChatCompletionRequest(
+            "1", "SkyChat-MegaVerse",
+            List.of(new SkyworkAiTiangongApi.ChatCompletionMessage("Hello",
+                    SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER)),
+            0.8f, false);
+
+    private static final ResponseEntity<SkyworkAiTiangongApi.ChatCompletion> RESPONSE = ResponseEntity
+        .ok(new SkyworkAiTiangongApi.ChatCompletion("chatcmpl-1", "chat.completion", 1L, "SkyChat-MegaVerse",
+                List.of(), "1", null));
+
+    private static final RuntimeException OVERLOADED = WebClientResponseException
+        .create(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", null, null, null);
+
+    private static final RuntimeException BAD_REQUEST = WebClientResponseException
+        .create(HttpStatus.BAD_REQUEST.value(), "Bad Request", null, null, null);
+
+    private final StubApi first = new StubApi();
+
+    private final StubApi second = new StubApi();
+
+    @Test
+    void leastOutstandingSpreadsRequestsInFlight() {
+        var api = new SkyworkAiTiangongLoadBalancedApi(members());
+        for (int i = 0; i < 4; i++) {
+            api.chatCompletionEntityAsync(REQUEST).subscribe();
+        }
+        assertThat(this.first.calls).hasValue(2);
+        assertThat(this.second.calls).hasValue(2);
+        assertThat(api.getMembers()).allSatisfy(member -> assertThat(member.getOutstanding()).isEqualTo(2));
+
+        this.first.complete();
+        this.second.complete();
+        assertThat(api.getMembers()).allSatisfy(member -> {
+            assertThat(member.getOutstanding()).isZero();
+            assertThat(member.getSuccessCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void ewmaPrefersTheFasterMember() throws InterruptedException {
+        List<SkyworkAiTiangongLoadBalancedApi.Member> members = members();
+        var api = new SkyworkAiTiangongLoadBalancedApi(members, SkyworkAiTiangongLoadBalancedApi.Strategy.EWMA, 3,
+                Duration.ofSeconds(30));
+        // members without samples score by outstanding requests, so each gets one
+        api.chatCompletionEntityAsync(REQUEST).subscribe();
+        api.chatCompletionEntityAsync(REQUEST).subscribe();
+        assertThat(this.first.calls).hasValue(1);
+        assertThat(this.second.calls).hasValue(1);
+        this.first.complete();
+        Thread.sleep(50);
+        this.second.complete();
+        assertThat(members.get(0).getLatencyEwmaMillis()).isLessThan(members.get(1).getLatencyEwmaMillis());
+
+        for (int i = 0; i < 5; i++) {
+            api.chatCompletionEntityAsync(REQUEST).subscribe();
+            this.first.complete();
+        }
+        assertThat(this.first.calls).hasValue(6);
+        assertThat(this.second.calls).hasValue(1);
+    }
+
+    @Test
+    void ejectsAMemberAfterConsecutiveOverloadFailuresAndRecovers() throws InterruptedException {
+        var member = new SkyworkAiTiangongLoadBalancedApi.Member("first", this.first);
+        var api = new SkyworkAiTiangongLoadBalancedApi(List.of(member),
+                SkyworkAiTiangongLoadBalancedApi.Strategy.LEAST_OUTSTANDING, 2, Duration.ofMillis(100));
+
+        // client errors say nothing about the health of the member
+        this.first.failure = BAD_REQUEST;
+        call(api);
+        call(api);
+        assertThat(member.isEjected()).isFalse();
+        assertThat(member.getFailureCount()).isZero();
+
+        this.first.failure = OVERLOADED;
+        call(api);
+        assertThat(member.isEjected()).isFalse();
+        call(api);
+        assertThat(member.isEjected()).isTrue();
+        assertThat(member.getEjectionCount()).isEqualTo(1);
+
+        // back after the ejection, and ejected again on its next failure
+        Thread.sleep(150);
+        assertThat(member.isEjected()).isFalse();
+        call(api);
+        assertThat(member.isEjected()).isTrue();
+        assertThat(member.getEjectionCount()).isEqualTo(2);
+
+        // a success resets the consecutive failures
+        Thread.sleep(150);
+        this.first.failure = null;
+        call(api);
+        this.first.failure = OVERLOADED;
+        call(api);
+        assertThat(member.isEjected()).isFalse();
+        assertThat(member.getOutstanding()).isZero();
+    }
+
+    @Test
+    void skipsEjectedMembers() {
+        List<SkyworkAiTiangongLoadBalancedApi.Member> members = members();
+        var api = new SkyworkAiTiangongLoadBalancedApi(members,
+                SkyworkAiTiangongLoadBalancedApi.Strategy.LEAST_OUTSTANDING, 1, Duration.ofMinutes(1));
+        this.first.failure = OVERLOADED;
+        for (int i = 0; i < 100 && !members.get(0).isEjected(); i++) {
+            call(api);
+        }
+        assertThat(members.get(0).isEjected()).isTrue();
+
+        int firstCalls = this.first.calls.get();
+        for (int i = 0; i < 10; i++) {
+            assertThat(api.chatCompletionEntity(REQUEST)).isSameAs(RESPONSE);
+        }
+        assertThat(this.first.calls).hasValue(firstCalls);
+    }
+
+    @Test
+    void usesTheFirstMemberBackWhenAllAreEjected() {
+        List<SkyworkAiTiangongLoadBalancedApi.Member> members = members();
+        var api = new SkyworkAiTiangongLoadBalancedApi(members,
+                SkyworkAiTiangongLoadBalancedApi.Strategy.LEAST_OUTSTANDING, 1, Duration.ofMinutes(1));
+        this.first.failure = OVERLOADED;
+        this.second.failure = OVERLOADED;
+        for (int i = 0; i < 100 && !(members.get(0).isEjected() && members.get(1).isEjected()); i++) {
+            call(api);
+        }
+        assertThat(members).allMatch(SkyworkAiTiangongLoadBalancedApi.Member::isEjected);
+
+        this.first.failure = null;
+        this.second.failure = null;
+        assertThat(api.chatCompletionEntity(REQUEST)).isSameAs(RESPONSE);
+    }
+
+    private List<SkyworkAiTiangongLoadBalancedApi.Member> members() {
+        return List.of(new SkyworkAiTiangongLoadBalancedApi.Member("first", this.first),
+                new SkyworkAiTiangongLoadBalancedApi.Member("second", this.second));
+    }
+
+    private static void call(SkyworkAiTiangongLoadBalancedApi api) {
+        try {
+            api.chatCompletionEntity(REQUEST);
+        }
+        catch (WebClientResponseException ex) {
+            // recorded by the load balancer
+        }
+    }
+
+    /**
+     * Member api answering blocking exchanges at once, or failing them, and holding
+     * reactive exchanges until completed.
+     */
+    private static final class StubApi extends SkyworkAiTiangongApi {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final List<Sinks.One<ResponseEntity<ChatCompletion>>> pending = new CopyOnWriteArrayList<>();
+
+        private volatile RuntimeException failure;
+
+        @Override
+        public ResponseEntity<ChatCompletion> chatCompletionEntity(ChatCompletionRequest chatRequest) {
+            this.calls.incrementAndGet();
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            return RESPONSE;
+        }
+
+        @Override
+        public Mono<ResponseEntity<ChatCompletion>> chatCompletionEntityAsync(ChatCompletionRequest chatRequest) {
+            return Mono.defer(() -> {
+                this.calls.incrementAndGet();
+                Sinks.One<ResponseEntity<ChatCompletion>> response = Sinks.one();
+                this.pending.add(response);
+                return response.asMono();
+            });
+        }
+
+        private void complete() {
+            for (Sinks.One<ResponseEntity<ChatCompletion>> response : this.pending) {
+                response.tryEmitValue(RESPONSE);
+            }
+            this.pending.clear();
+        }
+
+    }
+
+}
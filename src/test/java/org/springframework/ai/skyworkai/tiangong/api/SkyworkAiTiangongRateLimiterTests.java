@@ -0,0 +1,95 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the token buckets of {@link SkyworkAiTiangongRateLimiter}.
+ */
+class SkyworkAiTiangongRateLimiterTests {
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(30);
+
+    @Test
+    void waitsForTheRequestBucket() {
+        var limiter = new SkyworkAiTiangongRateLimiter(1, 60_000, MAX_WAIT);
+        assertThat(limiter.reserve(1)).isZero();
+
+        // each reservation runs the bucket further into debt, queueing the requests
+        long second = limiter.reserve(1);
+        long third = limiter.reserve(1);
+        assertThat(second).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1).toNanos());
+        assertThat(third).isGreaterThan(second).isLessThanOrEqualTo(Duration.ofSeconds(2).toNanos());
+    }
+
+    @Test
+    void waitsForTheTokenBucket() {
+        // ten tokens per second
+        var limiter = new SkyworkAiTiangongRateLimiter(100, 600, MAX_WAIT);
+        assertThat(limiter.reserve(600)).isZero();
+        assertThat(limiter.reserve(60)).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(6).toNanos());
+    }
+
+    @Test
+    void rejectsReservationsWaitingLongerThanTheMaxWait() {
+        var limiter = new SkyworkAiTiangongRateLimiter(100, 600, Duration.ZERO);
+        assertThat(limiter.reserve(600)).isZero();
+        assertThatThrownBy(() -> limiter.reserve(60)).isInstanceOf(SkyworkAiTiangongRateLimitExceededException.class);
+
+        // the rejected request reserved nothing
+        var waitingLimiter = new SkyworkAiTiangongRateLimiter(100, 600, Duration.ofSeconds(1));
+        assertThat(waitingLimiter.reserve(600)).isZero();
+        assertThatThrownBy(() -> waitingLimiter.reserve(60))
+            .isInstanceOf(SkyworkAiTiangongRateLimitExceededException.class);
+        assertThat(waitingLimiter.reserve(5)).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void letsARequestLargerThanTheBudgetPassAtFullDebt() {
+        var limiter = new SkyworkAiTiangongRateLimiter(100, 600, MAX_WAIT);
+        assertThat(limiter.reserve(10_000)).isZero();
+        assertThat(limiter.reserve(60)).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(6).toNanos());
+    }
+
+    @Test
+    void reconcilesTheEstimateWithTheReportedUsage() {
+        var limiter = new SkyworkAiTiangongRateLimiter(100, 600, MAX_WAIT);
+        assertThat(limiter.reserve(600)).isZero();
+
+        limiter.reconcile(600, new SkyworkAiTiangongApi.Usage(40, 100, 60));
+        assertThat(limiter.reserve(400)).isZero();
+    }
+
+    @Test
+    void chargesUsageAboveTheEstimate() {
+        var limiter = new SkyworkAiTiangongRateLimiter(100, 600, MAX_WAIT);
+        assertThat(limiter.reserve(100)).isZero();
+
+        limiter.reconcile(100, new SkyworkAiTiangongApi.Usage(100, 400, 300));
+        assertThat(limiter.reserve(300)).isPositive();
+    }
+
+    @Test
+    void ignoresAMissingUsage() {
+        var limiter = new SkyworkAiTiangongRateLimiter(100, 600, MAX_WAIT);
+        assertThat(limiter.reserve(600)).isZero();
+
+        limiter.reconcile(600, null);
+        limiter.reconcile(600, new SkyworkAiTiangongApi.Usage(null, null, null));
+        assertThat(limiter.reserve(60)).isPositive();
+    }
+
+    @Test
+    void releaseRefundsTheReservation() {
+        var limiter = new SkyworkAiTiangongRateLimiter(1, 600, MAX_WAIT);
+        assertThat(limiter.reserve(600)).isZero();
+
+        limiter.release(600);
+        assertThat(limiter.reserve(600)).isZero();
+    }
+
+}
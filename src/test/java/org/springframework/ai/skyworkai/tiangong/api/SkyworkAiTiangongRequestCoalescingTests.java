@@ -0,0 +1,123 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the coalescing of identical in-flight requests by
+ * {@link SkyworkAiTiangongApi#chatCompletionEntityAsync}.
+ */
+class SkyworkAiTiangongRequestCoalescingTests {
+
+    private static final SkyworkAiTiangongApi.ChatCompletionRequest REQUEST = new SkyworkAiTiangongApi.ChatCompletionRequest(
+            "1", "SkyChat-MegaVerse",
+            List.of(new SkyworkAiTiangongApi.ChatCompletionMessage("Hello",
+                    SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER)),
+            0f, false);
+
+    private static final ResponseEntity<SkyworkAiTiangongApi.ChatCompletion> RESPONSE = ResponseEntity
+        .ok(new SkyworkAiTiangongApi.ChatCompletion("chatcmpl-1", "chat.completion", 1L, "SkyChat-MegaVerse",
+                List.of(), "1", null));
+
+    private final List<Sinks.One<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>> exchanges = new ArrayList<>();
+
+    private final AtomicInteger exchangeCount = new AtomicInteger();
+
+    private final SkyworkAiTiangongApi api = new SkyworkAiTiangongApi() {
+
+        @Override
+        protected Mono<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> exchangeChatCompletionAsync(
+                SkyworkAiTiangongApi.ChatCompletionRequest chatRequest) {
+            return Mono.defer(() -> {
+                exchangeCount.incrementAndGet();
+                Sinks.One<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> exchange = Sinks.one();
+                exchanges.add(exchange);
+                return exchange.asMono();
+            });
+        }
+
+    };
+
+    SkyworkAiTiangongRequestCoalescingTests() {
+        this.api.setRequestCoalescing(true);
+    }
+
+    @Test
+    void identicalRequestsShareOneExchange() throws Exception {
+        List<CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>> calls = call(8);
+        assertThat(this.exchangeCount).hasValue(1);
+
+        this.exchanges.get(0).tryEmitValue(RESPONSE);
+        for (CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> call : calls) {
+            assertThat(call.get(1, TimeUnit.SECONDS)).isSameAs(RESPONSE);
+        }
+
+        // the completed exchange is not shared with later requests
+        call(1);
+        assertThat(this.exchangeCount).hasValue(2);
+    }
+
+    @Test
+    void leaderErrorReachesTheFollowers() {
+        List<CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>> calls = call(3);
+
+        this.exchanges.get(0).tryEmitError(new IOException("Connection reset"));
+        for (CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> call : calls) {
+            assertThatThrownBy(() -> call.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        }
+        assertThat(this.exchangeCount).hasValue(1);
+    }
+
+    @Test
+    void followersOfACancelledLeaderExchangeOnTheirOwn() throws Exception {
+        Disposable leader = this.api.chatCompletionEntityAsync(REQUEST).subscribe();
+        List<CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>> followers = call(2);
+        assertThat(this.exchangeCount).hasValue(1);
+
+        leader.dispose();
+        // the first follower leads a new exchange, which the second one joins
+        assertThat(this.exchangeCount).hasValue(2);
+        assertThat(followers).noneMatch(CompletableFuture::isDone);
+
+        this.exchanges.get(1).tryEmitValue(RESPONSE);
+        for (CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> follower : followers) {
+            assertThat(follower.get(1, TimeUnit.SECONDS)).isSameAs(RESPONSE);
+        }
+    }
+
+    @Test
+    void cancelledFollowerLeavesTheExchangeRunning() {
+        CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>> leader = call(1).get(0);
+        Disposable follower = this.api.chatCompletionEntityAsync(REQUEST).subscribe();
+
+        follower.dispose();
+        this.exchanges.get(0).tryEmitValue(RESPONSE);
+        assertThat(leader).succeedsWithin(Duration.ofSeconds(1)).isSameAs(RESPONSE);
+        assertThat(this.exchangeCount).hasValue(1);
+    }
+
+    private List<CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>> call(int calls) {
+        List<CompletableFuture<ResponseEntity<SkyworkAiTiangongApi.ChatCompletion>>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(this.api.chatCompletionEntityAsync(REQUEST).toFuture());
+        }
+        return futures;
+    }
+
+}
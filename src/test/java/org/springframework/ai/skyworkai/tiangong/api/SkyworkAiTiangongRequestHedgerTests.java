@@ -0,0 +1,103 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the hedging delay and budget of {@link SkyworkAiTiangongRequestHedger}.
+ */
+class SkyworkAiTiangongRequestHedgerTests {
+
+    private static final Duration INITIAL_DELAY = Duration.ofSeconds(5);
+
+    @Test
+    void delaysHedgesByTheConfiguredPercentileOfRecentLatencies() {
+        var hedger = new SkyworkAiTiangongRequestHedger(0.95, Duration.ofMillis(1), INITIAL_DELAY, 0.1, 50);
+        var lowerHedger = new SkyworkAiTiangongRequestHedger(0.9, Duration.ofMillis(1), INITIAL_DELAY, 0.1, 50);
+        assertThat(hedger.getDelay()).isEqualTo(INITIAL_DELAY);
+
+        // one window of latencies, the slowest tenth at 100 ms
+        for (int i = 0; i < 50; i++) {
+            long sleepMillis = (i % 10 == 0 ? 100 : 0);
+            hedger.execute(() -> sleep(sleepMillis));
+            lowerHedger.execute(() -> sleep(sleepMillis));
+        }
+
+        assertThat(hedger.getDelay()).isBetween(Duration.ofMillis(100), INITIAL_DELAY.minusMillis(1));
+        assertThat(lowerHedger.getDelay()).isLessThan(Duration.ofMillis(100));
+        assertThat(hedger.getHedgeCount()).isZero();
+    }
+
+    @Test
+    void neverHedgesSoonerThanTheMinDelay() {
+        var hedger = new SkyworkAiTiangongRequestHedger(0.5, Duration.ofMillis(200), INITIAL_DELAY, 0.1, 50);
+        for (int i = 0; i < 50; i++) {
+            hedger.execute(() -> "fast");
+        }
+        assertThat(hedger.getDelay()).isEqualTo(Duration.ofMillis(200));
+    }
+
+    @Test
+    void hedgesWithinTheBudget() {
+        // a whole hedge up front, then half a hedge per exchange
+        var hedger = new SkyworkAiTiangongRequestHedger(0.5, Duration.ZERO, Duration.ofMillis(20), 0.5);
+        for (int i = 0; i < 4; i++) {
+            assertThat(hedger.execute(() -> sleep(100))).isEqualTo("slept");
+        }
+        assertThat(hedger.getHedgeCount()).isEqualTo(3);
+    }
+
+    @Test
+    void returnsTheFirstResponse() {
+        var hedger = new SkyworkAiTiangongRequestHedger(0.5, Duration.ZERO, Duration.ofMillis(20), 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String response = hedger.execute(() -> (attempts.incrementAndGet() == 1 ? sleep(2000) : "hedge"));
+
+        assertThat(response).isEqualTo("hedge");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(hedger.getHedgeCount()).isEqualTo(1);
+        assertThat(hedger.getHedgeWinCount()).isEqualTo(1);
+    }
+
+    @Test
+    void propagatesAFailureBeforeTheHedgeAtOnce() {
+        var hedger = new SkyworkAiTiangongRequestHedger(0.5, Duration.ZERO, INITIAL_DELAY, 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> hedger.execute(() -> {
+            throw new IllegalStateException("Bad Gateway");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(INITIAL_DELAY);
+        assertThat(hedger.getHedgeCount()).isZero();
+    }
+
+    @Test
+    void waitsForTheHedgeWhenThePrimaryFailsAfterItWasSent() {
+        var hedger = new SkyworkAiTiangongRequestHedger(0.5, Duration.ZERO, Duration.ofMillis(20), 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String response = hedger.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(100);
+                throw new IllegalStateException("Bad Gateway");
+            }
+            return sleep(200);
+        });
+
+        assertThat(response).isEqualTo("slept");
+        assertThat(hedger.getHedgeWinCount()).isEqualTo(1);
+    }
+
+    private static String sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return "slept";
+    }
+
+}
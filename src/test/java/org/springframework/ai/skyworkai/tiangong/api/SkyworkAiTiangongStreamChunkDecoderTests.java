@@ -0,0 +1,104 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the SSE framing and {@code [DONE]} handling of
+ * {@link SkyworkAiTiangongStreamChunkDecoder}.
+ */
+class SkyworkAiTiangongStreamChunkDecoderTests {
+
+    private static final String FIRST_CHUNK = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1,"
+            + "\"model\":\"SkyChat-MegaVerse\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"你好\"}}]}";
+
+    private static final String LAST_CHUNK = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1,"
+            + "\"model\":\"SkyChat-MegaVerse\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"，世界\"},"
+            + "\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":3,\"total_tokens\":7,\"completion_tokens\":4}}";
+
+    private static final String BODY = "data: " + FIRST_CHUNK + "\n\n" + "data: " + LAST_CHUNK + "\n\n"
+            + "data: [DONE]\n\n";
+
+    private final SkyworkAiTiangongStreamChunkDecoder decoder = new SkyworkAiTiangongStreamChunkDecoder();
+
+    @Test
+    void decodesEventsOfOneBuffer() {
+        assertChunks(decode(BODY.getBytes(StandardCharsets.UTF_8).length, BODY));
+    }
+
+    @Test
+    void decodesEventsSplitAcrossBuffers() {
+        // every split position, including inside the field name, the JSON payload, a
+        // multi-byte character and the [DONE] marker
+        int length = BODY.getBytes(StandardCharsets.UTF_8).length;
+        for (int size = 1; size < length; size++) {
+            assertChunks(decode(size, BODY));
+        }
+    }
+
+    @Test
+    void decodesEventsWithCarriageReturnsAndWithoutSpace() {
+        String body = "data:" + FIRST_CHUNK + "\r\n\r\n" + "data:" + LAST_CHUNK + "\r\n\r\n" + "data:[DONE]\r\n\r\n";
+        assertChunks(decode(7, body));
+    }
+
+    @Test
+    void skipsCommentsAndOtherFields() {
+        String body = ": keep-alive\n\n" + "id: 1\nevent: message\ndata: " + FIRST_CHUNK + "\n\n"
+                + "retry: 1000\n\n" + "data: " + LAST_CHUNK + "\n\n" + "data: [DONE]\n\n";
+        assertChunks(decode(16, body));
+    }
+
+    @Test
+    void completesOnDoneAndIgnoresTheRest() {
+        String body = "data: " + FIRST_CHUNK + "\n\n" + "data: [DONE]\n\n" + "data: " + LAST_CHUNK + "\n\n";
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = decode(32, body);
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).choices().get(0).delta().content()).isEqualTo("你好");
+    }
+
+    @Test
+    void rejectsAnUnexpectedArrayPayload() {
+        String body = "data: " + FIRST_CHUNK + "\n\n" + "data: [{\"error\":\"overloaded\"}]\n\n";
+        assertThatThrownBy(() -> decode(32, body)).isInstanceOf(DecodingException.class);
+    }
+
+    @Test
+    void rejectsAPayloadStartingLikeDone() {
+        assertThatThrownBy(() -> decode(3, "data: [DONE!]\n\n")).isInstanceOf(DecodingException.class);
+    }
+
+    private List<SkyworkAiTiangongApi.ChatCompletionChunk> decode(int bufferSize, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int start = 0; start < bytes.length; start += bufferSize) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance
+                .wrap(Arrays.copyOfRange(bytes, start, Math.min(bytes.length, start + bufferSize))));
+        }
+        return this.decoder.decode(Flux.fromIterable(buffers)).collectList().block();
+    }
+
+    private static void assertChunks(List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).id()).isEqualTo("chatcmpl-1");
+        assertThat(chunks.get(0).choices().get(0).delta().role())
+            .isEqualTo(SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT);
+        assertThat(chunks.get(0).choices().get(0).delta().content()).isEqualTo("你好");
+        assertThat(chunks.get(1).choices().get(0).delta().content()).isEqualTo("，世界");
+        assertThat(chunks.get(1).choices().get(0).finishReason())
+            .isEqualTo(SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP);
+        assertThat(chunks.get(1).usage().totalTokens()).isEqualTo(7);
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the {@link SkyworkAiTiangongStreamFunctionCallingHelper.ChunkAccumulator}
+ * against folding the chunks of a window with
+ * {@link SkyworkAiTiangongStreamFunctionCallingHelper#merge}.
+ */
+class SkyworkAiTiangongStreamFunctionCallingHelperTests {
+
+    private static final SkyworkAiTiangongApi.Usage USAGE = new SkyworkAiTiangongApi.Usage(12, 30, 18);
+
+    private final SkyworkAiTiangongStreamFunctionCallingHelper helper = new SkyworkAiTiangongStreamFunctionCallingHelper();
+
+    @Test
+    void passesASingleTextChunkThrough() {
+        var chunk = chunk(SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, "你好", null, null, null);
+        assertThat(accumulate(List.of(chunk))).isSameAs(chunk).isEqualTo(fold(List.of(chunk)));
+    }
+
+    @Test
+    void mergesTextChunks() {
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = List.of(
+                chunk(SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, "你好", null, null, null),
+                chunk(null, "，世界", null, SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP, USAGE));
+        assertThat(accumulate(chunks)).isEqualTo(fold(chunks));
+    }
+
+    @Test
+    void mergesOneToolCallWithFragmentedArguments() {
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = new ArrayList<>();
+        chunks.add(chunk(SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null,
+                toolCall("call-1", "weather", ""), null, null));
+        for (String fragment : fragments("{\"city\":\"北京\",\"unit\":\"celsius\"}")) {
+            chunks.add(chunk(null, null, toolCall(null, null, fragment), null, null));
+        }
+        chunks.add(chunk(null, null, null, SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS, USAGE));
+
+        var accumulated = accumulate(chunks);
+        assertThat(accumulated).isEqualTo(fold(chunks));
+        var toolCall = accumulated.choices().get(0).delta().toolCalls().get(0);
+        assertThat(toolCall.id()).isEqualTo("call-1");
+        assertThat(toolCall.function().arguments()).isEqualTo("{\"city\":\"北京\",\"unit\":\"celsius\"}");
+        assertThat(accumulated.usage()).isEqualTo(USAGE);
+    }
+
+    @Test
+    void mergesSuccessiveToolCalls() {
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = new ArrayList<>();
+        chunks.add(chunk(SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null,
+                toolCall("call-1", "weather", "{\"city\":"), null, null));
+        chunks.add(chunk(null, null, toolCall(null, null, "\"北京\"}"), null, null));
+        chunks.add(chunk(null, null, toolCall("call-2", "time", "{\"zone\":"), null, null));
+        chunks.add(chunk(null, null, toolCall(null, null, "\"Asia/Shanghai\"}"), null, null));
+        chunks.add(chunk(null, null, toolCall("call-3", "date", null), null, null));
+        chunks.add(chunk(null, null, null, SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS, null));
+
+        var accumulated = accumulate(chunks);
+        assertThat(accumulated).isEqualTo(fold(chunks));
+        assertThat(accumulated.choices().get(0).delta().toolCalls())
+            .extracting(SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall::id)
+            .containsExactly("call-1", "call-2", "call-3");
+    }
+
+    @Test
+    void assignsAnIdToAToolCallStreamedWithoutOne() {
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = new ArrayList<>();
+        chunks.add(chunk(null, null, toolCall(null, "weather", null), null, null));
+        for (String fragment : fragments("{\"city\":\"北京\"}")) {
+            chunks.add(chunk(null, null, toolCall(null, null, fragment), null, null));
+        }
+
+        var accumulated = accumulate(chunks);
+        var folded = fold(chunks);
+        String accumulatedId = accumulated.choices().get(0).delta().toolCalls().get(0).id();
+        String foldedId = folded.choices().get(0).delta().toolCalls().get(0).id();
+        assertThat(accumulatedId).isNotNull();
+        assertThat(foldedId).isNotNull();
+        // the generated ids differ, everything else matches
+        assertThat(withToolCallId(accumulated, "generated")).isEqualTo(withToolCallId(folded, "generated"));
+        assertThat(accumulated.choices().get(0).delta().role())
+            .isEqualTo(SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT);
+    }
+
+    @Test
+    void assignsAnIdToASingleToolCallChunkWithoutOne() {
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = List
+            .of(chunk(null, null, toolCall(null, "weather", "{}"), null, null));
+
+        var accumulated = accumulate(chunks);
+        assertThat(accumulated.choices().get(0).delta().toolCalls().get(0).id()).isNotNull();
+        assertThat(withToolCallId(accumulated, "generated")).isEqualTo(withToolCallId(fold(chunks), "generated"));
+    }
+
+    private SkyworkAiTiangongApi.ChatCompletionChunk accumulate(List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+        var accumulator = this.helper.accumulator();
+        chunks.forEach(accumulator::add);
+        return accumulator.toChunk();
+    }
+
+    /**
+     * The window reduction {@code chatCompletionStream} used before the accumulator.
+     */
+    private SkyworkAiTiangongApi.ChatCompletionChunk fold(List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+        var merged = new SkyworkAiTiangongApi.ChatCompletionChunk(null, null, null, null, null, null);
+        for (SkyworkAiTiangongApi.ChatCompletionChunk chunk : chunks) {
+            merged = this.helper.merge(merged, chunk);
+        }
+        return merged;
+    }
+
+    private static List<String> fragments(String arguments) {
+        List<String> fragments = new ArrayList<>();
+        for (int start = 0; start < arguments.length(); start += 3) {
+            fragments.add(arguments.substring(start, Math.min(arguments.length(), start + 3)));
+        }
+        return fragments;
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionChunk chunk(SkyworkAiTiangongApi.ChatCompletionMessage.Role role,
+            String content, SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall,
+            SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason, SkyworkAiTiangongApi.Usage usage) {
+        var delta = new SkyworkAiTiangongApi.ChatCompletionMessage(content, role, null,
+                (toolCall != null ? List.of(toolCall) : null));
+        return new SkyworkAiTiangongApi.ChatCompletionChunk("chatcmpl-1", "chat.completion.chunk", 1L,
+                "SkyChat-MegaVerse", "1", List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(0, delta,
+                        finishReason)),
+                usage);
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall(String id, String name,
+            String arguments) {
+        return new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall(id, (id != null ? "function" : null),
+                new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction(name, arguments));
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionChunk withToolCallId(SkyworkAiTiangongApi.ChatCompletionChunk chunk,
+            String id) {
+        var choice = chunk.choices().get(0);
+        var delta = choice.delta();
+        var toolCalls = delta.toolCalls()
+            .stream()
+            .map(toolCall -> new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall(id, toolCall.type(),
+                    toolCall.function()))
+            .toList();
+        return new SkyworkAiTiangongApi.ChatCompletionChunk(chunk.id(), chunk.object(), chunk.created(), chunk.model(),
+                chunk.requestId(),
+                List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(choice.index(),
+                        new SkyworkAiTiangongApi.ChatCompletionMessage(delta.content(), delta.role(), delta.name(),
+                                toolCalls),
+                        choice.finishReason())),
+                chunk.usage());
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.springframework.ai.skyworkai.tiangong.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests of the estimates of {@link SkyworkAiTiangongTokenEstimator} and the trimming of
+ * {@link SkyworkAiTiangongTokenBudget}.
+ */
+class SkyworkAiTiangongTokenBudgetTests {
+
+    /**
+     * Three tokens per request plus ten per message.
+     */
+    private static final SkyworkAiTiangongTokenEstimator FIXED_ESTIMATOR = new SkyworkAiTiangongTokenEstimator() {
+
+        @Override
+        public int estimateMessage(SkyworkAiTiangongApi.ChatCompletionMessage message) {
+            return 10;
+        }
+
+    };
+
+    private static final SkyworkAiTiangongApi.ChatCompletionMessage SYSTEM = message("You are a helpful assistant.",
+            SkyworkAiTiangongApi.ChatCompletionMessage.Role.SYSTEM);
+
+    private static final SkyworkAiTiangongApi.ChatCompletionMessage LAST = message("And tomorrow?",
+            SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER);
+
+    private final SkyworkAiTiangongTokenEstimator estimator = new SkyworkAiTiangongTokenEstimator();
+
+    @Test
+    void estimatesTextByScript() {
+        assertThat(this.estimator.estimateText(null)).isZero();
+        assertThat(this.estimator.estimateText("")).isZero();
+        // three letters, digits or whitespace characters per token
+        assertThat(this.estimator.estimateText("hello")).isEqualTo(2);
+        assertThat(this.estimator.estimateText("hello world")).isEqualTo(4);
+        // half a token per punctuation character, one per ideograph
+        assertThat(this.estimator.estimateText("{}")).isEqualTo(1);
+        assertThat(this.estimator.estimateText("你好，世界")).isEqualTo(5);
+    }
+
+    @Test
+    void estimatesMessagesWithTheirOverhead() {
+        var message = message("hello", SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER);
+        assertThat(this.estimator.estimateMessage(message)).isEqualTo(4 + 2);
+
+        var request = request(null, SYSTEM, message);
+        assertThat(this.estimator.estimatePrompt(request))
+            .isEqualTo(3 + this.estimator.estimateMessage(SYSTEM) + this.estimator.estimateMessage(message));
+    }
+
+    @Test
+    void returnsARequestThatFits() {
+        var request = request(20, SYSTEM, LAST);
+        var budget = new SkyworkAiTiangongTokenBudget(43, false, FIXED_ESTIMATOR);
+        assertThat(budget.enforce(request)).isSameAs(request);
+    }
+
+    @Test
+    void rejectsARequestThatDoesNotFitWithoutTrimming() {
+        var request = request(20, SYSTEM, LAST);
+        var budget = new SkyworkAiTiangongTokenBudget(42, false, FIXED_ESTIMATOR);
+        assertThatThrownBy(() -> budget.enforce(request))
+            .isInstanceOfSatisfying(SkyworkAiTiangongTokenBudgetExceededException.class, ex -> {
+                assertThat(ex.getEstimatedTokens()).isEqualTo(43);
+                assertThat(ex.getContextWindow()).isEqualTo(42);
+            });
+    }
+
+    @Test
+    void trimsTheOldestMessagesTogetherWithTheirToolResults() {
+        var question = message("What is the weather in Beijing?", SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER);
+        var toolCalls = new SkyworkAiTiangongApi.ChatCompletionMessage(null,
+                SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null,
+                List.of(toolCall("call-1"), toolCall("call-2")));
+        var firstResult = new SkyworkAiTiangongApi.ChatCompletionMessage("{\"celsius\":20}",
+                SkyworkAiTiangongApi.ChatCompletionMessage.Role.TOOL, "weather", null);
+        var secondResult = new SkyworkAiTiangongApi.ChatCompletionMessage("{\"celsius\":21}",
+                SkyworkAiTiangongApi.ChatCompletionMessage.Role.TOOL, "weather", null);
+        var answer = message("It is sunny, 20 degrees.", SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT);
+        var request = request(null, SYSTEM, question, toolCalls, firstResult, secondResult, answer, LAST);
+
+        // dropping the question and the tool calls would be enough, their results go too
+        var budget = new SkyworkAiTiangongTokenBudget(55, true, FIXED_ESTIMATOR);
+        var trimmed = budget.enforce(request);
+
+        assertThat(trimmed.messages()).containsExactly(SYSTEM, answer, LAST);
+        assertThat(trimmed.model()).isEqualTo(request.model());
+    }
+
+    @Test
+    void keepsTheSystemAndTheLastMessage() {
+        var question = message("What is the weather in Beijing?", SkyworkAiTiangongApi.ChatCompletionMessage.Role.USER);
+        var request = request(null, SYSTEM, question, LAST);
+
+        var budget = new SkyworkAiTiangongTokenBudget(23, true, FIXED_ESTIMATOR);
+        assertThat(budget.enforce(request).messages()).containsExactly(SYSTEM, LAST);
+
+        var tooSmall = new SkyworkAiTiangongTokenBudget(22, true, FIXED_ESTIMATOR);
+        assertThatThrownBy(() -> tooSmall.enforce(request))
+            .isInstanceOf(SkyworkAiTiangongTokenBudgetExceededException.class);
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionRequest request(Integer maxTokens,
+            SkyworkAiTiangongApi.ChatCompletionMessage... messages) {
+        return new SkyworkAiTiangongApi.ChatCompletionRequest("1", "SkyChat-MegaVerse", List.of(messages), null,
+                false, null, null, maxTokens, null, null, null, null);
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionMessage message(String content,
+            SkyworkAiTiangongApi.ChatCompletionMessage.Role role) {
+        return new SkyworkAiTiangongApi.ChatCompletionMessage(content, role);
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall(String id) {
+        return new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall(id, "function",
+                new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction("weather",
+                        "{\"city\":\"Beijing\"}"));
+    }
+
+}
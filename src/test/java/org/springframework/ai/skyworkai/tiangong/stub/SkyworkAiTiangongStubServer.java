@@ -0,0 +1,369 @@
+package org.springframework.ai.skyworkai.tiangong.stub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongApi;
+import org.springframework.ai.skyworkai.tiangong.api.SkyworkAiTiangongImageApi;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded stand-in for the Skywork AI Tiangong service, for load, latency and soak
+ * tests without network access or quota. Point
+ * {@code spring.ai.sensetimeai.sensenova.base-url} at {@link #getBaseUrl()}.
+ * <p>
+ * Serves {@code /api/paas/v4/chat/completions}, as JSON or as Server-Sent Events ending
+ * with {@code data: [DONE]}, and {@code /api/paas/v4/images/generations}. Every response
+ * waits {@link #setLatency latency} before it starts, then generates
+ * {@link #setCompletionTokens completionTokens} tokens at one per
+ * {@link #setChunkInterval chunkInterval}: streams emit one chunk per token, JSON
+ * responses are sent once all are generated. When {@link #setToolCallArguments tool
+ * call arguments} are set, requests declaring tools get the first tool called instead,
+ * streamed in fragments, until the conversation ends with a TOOL message. A share of
+ * the requests can be {@link #setErrorRate failed} to exercise retries and breakers.
+ * <p>
+ * The settings can be changed while the server runs and apply to the next request.
+ */
+public class SkyworkAiTiangongStubServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkyworkAiTiangongStubServer.class);
+
+    public static final String CHAT_COMPLETIONS_PATH = "/api/paas/v4/chat/completions";
+
+    public static final String IMAGE_GENERATIONS_PATH = "/api/paas/v4/images/generations";
+
+    private static final String[] VOCABULARY = { "天工", "是", "一款", "大型", "语言", "模型", "，", " Sky", "Chat", " stub",
+            " token", "。" };
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final LongAdder chatRequests = new LongAdder();
+
+    private final LongAdder imageRequests = new LongAdder();
+
+    private final DisposableServer server;
+
+    private volatile Duration latency = Duration.ofMillis(200);
+
+    private volatile Duration chunkInterval = Duration.ofMillis(20);
+
+    private volatile int promptTokens = 32;
+
+    private volatile int completionTokens = 64;
+
+    private volatile String toolCallArguments;
+
+    private volatile int toolCallFragmentSize = 8;
+
+    private volatile double errorRate;
+
+    private volatile int errorStatus = 503;
+
+    /**
+     * Start a stub server on an ephemeral port of the loopback interface.
+     */
+    public SkyworkAiTiangongStubServer() {
+        this(0);
+    }
+
+    /**
+     * Start a stub server on the given port of the loopback interface.
+     * @param port the port, {@code 0} for an ephemeral one.
+     */
+    public SkyworkAiTiangongStubServer(int port) {
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes.post(CHAT_COMPLETIONS_PATH, this::chatCompletions)
+                        .post(IMAGE_GENERATIONS_PATH, this::imageGenerations))
+                .bindNow();
+        logger.info("Skywork AI Tiangong stub server listening on {}", getBaseUrl());
+    }
+
+    /**
+     * Run a stub server until the process is stopped.
+     * @param args the port, 8089 by default.
+     */
+    public static void main(String[] args) {
+        SkyworkAiTiangongStubServer stubServer = new SkyworkAiTiangongStubServer(
+                args.length > 0 ? Integer.parseInt(args[0]) : 8089);
+        stubServer.server.onDispose().block();
+    }
+
+    /**
+     * @return the base URL of the server, e.g. {@code http://127.0.0.1:54321}.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public int getPort() {
+        return this.server.port();
+    }
+
+    /**
+     * @param latency the time before a response starts, i.e. the time to first token.
+     */
+    public void setLatency(Duration latency) {
+        Assert.notNull(latency, "Latency must not be null");
+        this.latency = latency;
+    }
+
+    /**
+     * @param chunkInterval the time to generate one token, between two chunks of a
+     * stream.
+     */
+    public void setChunkInterval(Duration chunkInterval) {
+        Assert.notNull(chunkInterval, "Chunk interval must not be null");
+        this.chunkInterval = chunkInterval;
+    }
+
+    /**
+     * @param promptTokens the prompt tokens reported in the usage.
+     */
+    public void setPromptTokens(int promptTokens) {
+        Assert.isTrue(promptTokens >= 0, "Prompt tokens must not be negative");
+        this.promptTokens = promptTokens;
+    }
+
+    /**
+     * @param completionTokens the tokens generated per completion.
+     */
+    public void setCompletionTokens(int completionTokens) {
+        Assert.isTrue(completionTokens > 0, "Completion tokens must be positive");
+        this.completionTokens = completionTokens;
+    }
+
+    /**
+     * @param toolCallArguments the JSON arguments the first declared tool is called with,
+     * {@code null} to always answer with text.
+     */
+    public void setToolCallArguments(String toolCallArguments) {
+        this.toolCallArguments = toolCallArguments;
+    }
+
+    /**
+     * @param toolCallFragmentSize the characters of the tool call arguments per chunk.
+     */
+    public void setToolCallFragmentSize(int toolCallFragmentSize) {
+        Assert.isTrue(toolCallFragmentSize > 0, "Tool call fragment size must be positive");
+        this.toolCallFragmentSize = toolCallFragmentSize;
+    }
+
+    /**
+     * @param errorRate the share of requests failed, between 0 and 1.
+     * @param errorStatus the HTTP status of the failed requests, e.g. 429 or 503.
+     */
+    public void setErrorRate(double errorRate, int errorStatus) {
+        Assert.isTrue(errorRate >= 0 && errorRate <= 1, "Error rate must be between 0 and 1");
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    public long getChatRequestCount() {
+        return this.chatRequests.sum();
+    }
+
+    public long getImageRequestCount() {
+        return this.imageRequests.sum();
+    }
+
+    @Override
+    public void close() {
+        this.server.disposeNow();
+    }
+
+    private Publisher<Void> chatCompletions(HttpServerRequest request, HttpServerResponse response) {
+        this.chatRequests.increment();
+        return request.receive().aggregate().asByteArray().flatMap(body -> {
+            SkyworkAiTiangongApi.ChatCompletionRequest chatRequest;
+            try {
+                chatRequest = this.objectMapper.readValue(body, SkyworkAiTiangongApi.ChatCompletionRequest.class);
+            }
+            catch (Exception ex) {
+                return sendError(response, HttpResponseStatus.BAD_REQUEST.code(), "1210", "Invalid request body");
+            }
+            if (isFailed()) {
+                return Mono.delay(this.latency)
+                        .then(sendError(response, this.errorStatus, "1302", "Stub server injected failure"));
+            }
+            List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = generate(chatRequest);
+            if (Boolean.TRUE.equals(chatRequest.stream())) {
+                return stream(response, chunks);
+            }
+            Duration generation = this.chunkInterval.multipliedBy(chunks.size());
+            return Mono.delay(this.latency.plus(generation))
+                    .then(sendJson(response, HttpResponseStatus.OK.code(), toChatCompletion(chunks)));
+        }).then();
+    }
+
+    private Publisher<Void> imageGenerations(HttpServerRequest request, HttpServerResponse response) {
+        this.imageRequests.increment();
+        return request.receive().aggregate().asByteArray().flatMap(body -> {
+            if (isFailed()) {
+                return Mono.delay(this.latency)
+                        .then(sendError(response, this.errorStatus, "1302", "Stub server injected failure"));
+            }
+            var image = new SkyworkAiTiangongImageApi.ZhipuAiImageResponse(System.currentTimeMillis() / 1000,
+                    List.of(new SkyworkAiTiangongImageApi.Data(getBaseUrl() + "/images/" + UUID.randomUUID() + ".png")),
+                    null);
+            return Mono.delay(this.latency).then(sendJson(response, HttpResponseStatus.OK.code(), image));
+        }).then();
+    }
+
+    private boolean isFailed() {
+        double errorRate = this.errorRate;
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    /**
+     * The chunks of one completion, a tool call or text.
+     */
+    private List<SkyworkAiTiangongApi.ChatCompletionChunk> generate(SkyworkAiTiangongApi.ChatCompletionRequest chatRequest) {
+        String id = "chatcmpl-" + UUID.randomUUID();
+        long created = System.currentTimeMillis() / 1000;
+        String model = (chatRequest.model() != null ? chatRequest.model() : SkyworkAiTiangongApi.ChatModel.SKYCHAT_MEGAVERSE.getValue());
+        String requestId = (chatRequest.requestId() != null ? chatRequest.requestId() : id);
+        List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks = new ArrayList<>();
+
+        String arguments = this.toolCallArguments;
+        if (arguments != null && isToolCallTurn(chatRequest)) {
+            String name = chatRequest.tools().get(0).function().name();
+            int fragmentSize = this.toolCallFragmentSize;
+            chunks.add(chunk(id, created, model, requestId, new SkyworkAiTiangongApi.ChatCompletionMessage(null,
+                    SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null,
+                    List.of(toolCall("call_" + UUID.randomUUID(), name, ""))),
+                    arguments.isEmpty() ? SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS : null));
+            for (int start = 0; start < arguments.length(); start += fragmentSize) {
+                String fragment = arguments.substring(start, Math.min(arguments.length(), start + fragmentSize));
+                boolean last = start + fragmentSize >= arguments.length();
+                chunks.add(chunk(id, created, model, requestId, new SkyworkAiTiangongApi.ChatCompletionMessage(null,
+                        null, null, List.of(toolCall(null, null, fragment))),
+                        last ? SkyworkAiTiangongApi.ChatCompletionFinishReason.TOOL_CALLS : null));
+            }
+            return chunks;
+        }
+
+        int tokens = this.completionTokens;
+        for (int i = 0; i < tokens; i++) {
+            var role = (i == 0 ? SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT : null);
+            chunks.add(chunk(id, created, model, requestId,
+                    new SkyworkAiTiangongApi.ChatCompletionMessage(VOCABULARY[i % VOCABULARY.length], role),
+                    i == tokens - 1 ? SkyworkAiTiangongApi.ChatCompletionFinishReason.STOP : null));
+        }
+        return chunks;
+    }
+
+    private static boolean isToolCallTurn(SkyworkAiTiangongApi.ChatCompletionRequest chatRequest) {
+        if (CollectionUtils.isEmpty(chatRequest.tools()) || CollectionUtils.isEmpty(chatRequest.messages())) {
+            return false;
+        }
+        var lastMessage = chatRequest.messages().get(chatRequest.messages().size() - 1);
+        return lastMessage.role() != SkyworkAiTiangongApi.ChatCompletionMessage.Role.TOOL;
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall toolCall(String id, String name,
+            String arguments) {
+        return new SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall(id, (id != null ? "function" : null),
+                new SkyworkAiTiangongApi.ChatCompletionMessage.ChatCompletionFunction(name, arguments));
+    }
+
+    private static SkyworkAiTiangongApi.ChatCompletionChunk chunk(String id, long created, String model,
+            String requestId, SkyworkAiTiangongApi.ChatCompletionMessage delta,
+            SkyworkAiTiangongApi.ChatCompletionFinishReason finishReason) {
+        return new SkyworkAiTiangongApi.ChatCompletionChunk(id, "chat.completion.chunk", created, model, requestId,
+                List.of(new SkyworkAiTiangongApi.ChatCompletionChunk.ChunkChoice(0, delta, finishReason)));
+    }
+
+    /**
+     * The chunks folded into one completion, with the usage.
+     */
+    private SkyworkAiTiangongApi.ChatCompletion toChatCompletion(List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+        StringBuilder content = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall firstToolCall = null;
+        for (SkyworkAiTiangongApi.ChatCompletionChunk chunk : chunks) {
+            var delta = chunk.choices().get(0).delta();
+            if (delta.content() != null) {
+                content.append(delta.content());
+            }
+            if (delta.toolCalls() != null) {
+                var toolCall = delta.toolCalls().get(0);
+                if (firstToolCall == null) {
+                    firstToolCall = toolCall;
+                }
+                arguments.append(toolCall.function().arguments());
+            }
+        }
+        var first = chunks.get(0);
+        var last = chunks.get(chunks.size() - 1);
+        List<SkyworkAiTiangongApi.ChatCompletionMessage.ToolCall> toolCalls = (firstToolCall != null
+                ? List.of(toolCall(firstToolCall.id(), firstToolCall.function().name(), arguments.toString())) : null);
+        var message = new SkyworkAiTiangongApi.ChatCompletionMessage((toolCalls != null ? null : content.toString()),
+                SkyworkAiTiangongApi.ChatCompletionMessage.Role.ASSISTANT, null, toolCalls);
+        int promptTokens = this.promptTokens;
+        return new SkyworkAiTiangongApi.ChatCompletion(first.id(), "chat.completion", first.created(), first.model(),
+                List.of(new SkyworkAiTiangongApi.ChatCompletion.Choice(0, message, last.choices().get(0).finishReason())),
+                first.requestId(), new SkyworkAiTiangongApi.Usage(promptTokens, promptTokens + chunks.size(), chunks.size()));
+    }
+
+    private Mono<Void> stream(HttpServerResponse response, List<SkyworkAiTiangongApi.ChatCompletionChunk> chunks) {
+        Duration chunkInterval = this.chunkInterval;
+        Flux<SkyworkAiTiangongApi.ChatCompletionChunk> paced = Flux.fromIterable(chunks);
+        if (!chunkInterval.isZero()) {
+            paced = paced.delayElements(chunkInterval);
+        }
+        Flux<String> events = paced.map(chunk -> "data: " + toJson(chunk) + "\n\n")
+                .concatWithValues("data: [DONE]\n\n");
+        return Mono.delay(this.latency)
+                .then(response.status(HttpResponseStatus.OK)
+                        .header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream;charset=UTF-8")
+                        .header(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                        .sendString(events, StandardCharsets.UTF_8)
+                        .then());
+    }
+
+    private Mono<Void> sendJson(HttpServerResponse response, int status, Object body) {
+        return response.status(status)
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json;charset=UTF-8")
+                .sendString(Mono.fromCallable(() -> toJson(body)), StandardCharsets.UTF_8)
+                .then();
+    }
+
+    private Mono<Void> sendError(HttpServerResponse response, int status, String code, String message) {
+        var error = new SkyworkAiTiangongImageApi.Error(code, message);
+        return sendJson(response, status, Map.of("error", error));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return this.objectMapper.writeValueAsString(value);
+        }
+        catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName(), ex);
+        }
+    }
+
+}